@@ -0,0 +1,369 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.bench;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import rs.alexanderstojanovich.udfc.core.FontExporter;
+import rs.alexanderstojanovich.udfc.core.GlyphRenderer;
+import rs.alexanderstojanovich.udfc.core.RenderSettings;
+import rs.alexanderstojanovich.udfc.util.CharRange;
+import rs.alexanderstojanovich.udfc.util.Palette;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class ExportBenchmark { // whole exports of the fixed corpus, JSON results compared against the baseline
+
+    // how the benchmark is used
+    private static final String USAGE = "Usage: ExportBenchmark [options]\n"
+            + "  --font <name|file.ttf>     font of the corpus (default DejaVu Sans)\n"
+            + "  --mode <mode>              sequential, parallel or pipelined (default parallel)\n"
+            + "  --threads <n>              render threads (default all processors)\n"
+            + "  --rounds <n>               measured rounds of each scenario, best one counts (default 3)\n"
+            + "  --scenarios <list>         comma separated coverage, cjk-10k, bigfont-effects (default all)\n"
+            + "  --json <file>              write the results into the file (default standard output)\n"
+            + "  --baseline <file>          fail if throughput is worse than the baseline's by the threshold\n"
+            + "  --threshold <percent>      allowed throughput regression (default 10)\n"
+            + "  --save-baseline <file>     store the results as the new baseline\n";
+
+    // CJK Unified Ideographs, first 10000 of them
+    private static final CharRange CJK_10K = new CharRange(0x4E00, 0x4E00 + 9999);
+
+    // corpus of the benchmark, each scenario is one whole export
+    private static final String[] SCENARIO_NAMES = {"coverage", "cjk-10k", "bigfont-effects"};
+
+    // sampled allocations of all the threads (job worker, pool and stage threads come and go),
+    // each thread's counter is remembered so threads which died meanwhile are still counted
+    private static class AllocationSampler extends Thread {
+
+        private final com.sun.management.ThreadMXBean threads;
+        private final Map<Long, Long> allocated = new HashMap<>();
+        private final Map<Long, Long> initial = new HashMap<>();
+        private volatile boolean running = true;
+
+        private AllocationSampler(com.sun.management.ThreadMXBean threads) {
+            super("Allocation Sampler");
+            this.threads = threads;
+            this.setDaemon(true);
+            sample(initial);
+        }
+
+        // allocated bytes of each live thread
+        private synchronized void sample(Map<Long, Long> into) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0L) {
+                    into.put(ids[i], bytes[i]);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample(allocated);
+                try {
+                    Thread.sleep(5L);
+                } catch (InterruptedException ex) {
+                    break;
+                }
+            }
+        }
+
+        // stop sampling, returns bytes allocated since the sampler was made
+        private long finish() throws InterruptedException {
+            running = false;
+            join();
+            sample(allocated);
+            long total = 0L;
+            for (Map.Entry<Long, Long> entry : allocated.entrySet()) {
+                Long before = initial.get(entry.getKey());
+                total += entry.getValue() - ((before != null) ? before : 0L);
+            }
+            return total;
+        }
+    }
+
+    // what is exported in the scenario
+    private static class Scenario {
+
+        private final RenderSettings settings;
+        private final String format;
+        private final int[] codePoints;
+
+        private Scenario(RenderSettings settings, String format, int[] codePoints) {
+            this.settings = settings;
+            this.format = format;
+            this.codePoints = codePoints;
+        }
+    }
+
+    // result of one scenario (best round)
+    private static class Result {
+
+        private String name;
+        private int glyphs;
+        private long wallMillis;
+        private double glyphsPerSecond;
+        private long peakHeapBytes;
+        private long allocatedBytes;
+        private double allocationRate;
+        private long outputBytes;
+
+        private String toJSON() {
+            return String.format(Locale.ROOT, "{\"name\": \"%s\", \"glyphs\": %d, \"wallMillis\": %d, \"glyphsPerSecond\": %.1f, "
+                    + "\"peakHeapBytes\": %d, \"allocatedBytes\": %d, \"allocationRate\": %.1f, \"outputBytes\": %d}",
+                    name, glyphs, wallMillis, glyphsPerSecond, peakHeapBytes, allocatedBytes, allocationRate, outputBytes);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS (NONE, STATIC METHODS ONLY)
+    //--------------------------------------------------------------------------
+    private ExportBenchmark() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    // B1 - Settings, format and code points of the scenario
+    private static Scenario scenario(String name, Font font) {
+        RenderSettings base = RenderSettings.DEFAULT.toBuilder().setUseAntialias(true).setFgColor(Color.YELLOW).build();
+        List<CharRange> coverage = Arrays.asList(CharRange.LATIN, CharRange.LATIN_EXT, CharRange.GREEK, CharRange.CYRILLIC);
+        switch (name) {
+            case "coverage":
+                return new Scenario(base.toBuilder().setFont(font.deriveFont(16.0f)).setOutlineWidth(1).build(),
+                        "Console Font", FontExporter.codePoints(coverage));
+            case "cjk-10k":
+                return new Scenario(base.toBuilder().setFont(font.deriveFont(16.0f)).build(),
+                        "Small Font", FontExporter.codePoints(Arrays.asList(CJK_10K)));
+            case "bigfont-effects":
+                return new Scenario(base.toBuilder().setFont(font.deriveFont(32.0f)).setUseGradient(true).setOutlineWidth(2)
+                        .setUseShadow(true).setPalette(Palette.forName("Doom")).build(),
+                        "Big Font", FontExporter.codePoints(coverage));
+            default:
+                throw new IllegalArgumentException("unknown scenario " + name);
+        }
+    }
+
+    // B2 - Heap memory pools, their peaks are reset before each round
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    // B3 - Run the scenario (warm up round and measured rounds), fresh renderer each round so nothing is cached
+    private static Result run(String name, Font font, FontExporter.ExportMode mode, int threads, int rounds) throws IOException, InterruptedException {
+        Scenario scenario = scenario(name, font);
+        int[] codePoints = scenario.codePoints;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = (threadBean instanceof com.sun.management.ThreadMXBean)
+                ? (com.sun.management.ThreadMXBean) threadBean : null;
+        List<MemoryPoolMXBean> pools = heapPools();
+        File pk3 = File.createTempFile("udfc-bench-" + name + ".", ".pk3");
+        Result best = null;
+        try {
+            for (int r = -1; r < rounds; r++) {
+                FontExporter exporter = new FontExporter(new GlyphRenderer());
+                exporter.setExportMode(mode);
+                exporter.setParallelism(threads);
+                exporter.setResumable(false);
+                System.gc();
+                for (MemoryPoolMXBean pool : pools) {
+                    pool.resetPeakUsage();
+                }
+                AllocationSampler sampler = null;
+                if (allocationBean != null && allocationBean.isThreadAllocatedMemorySupported()) {
+                    sampler = new AllocationSampler(allocationBean);
+                    sampler.start();
+                }
+                long begin = System.nanoTime();
+                exporter.export(scenario.settings, pk3, scenario.format, codePoints);
+                long nanos = System.nanoTime() - begin;
+                long allocated = (sampler != null) ? sampler.finish() : -1L;
+                long peakHeap = 0L;
+                for (MemoryPoolMXBean pool : pools) {
+                    peakHeap += pool.getPeakUsage().getUsed();
+                }
+                // warm up round isn't counted
+                if (r < 0) {
+                    continue;
+                }
+                Result result = new Result();
+                result.name = name;
+                result.glyphs = codePoints.length;
+                result.wallMillis = nanos / 1000000L;
+                result.glyphsPerSecond = codePoints.length * 1E9 / nanos;
+                result.peakHeapBytes = peakHeap;
+                result.allocatedBytes = allocated;
+                result.allocationRate = (allocated < 0L) ? -1.0 : allocated * 1E9 / nanos;
+                result.outputBytes = pk3.length();
+                if (best == null || result.glyphsPerSecond > best.glyphsPerSecond) {
+                    best = result;
+                }
+            }
+        } finally {
+            pk3.delete();
+        }
+        return best;
+    }
+
+    // B4 - Results as JSON document
+    private static String toJSON(String fontName, FontExporter.ExportMode mode, int threads, List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"font\": \"").append(fontName.replace("\"", "'")).append("\",\n");
+        sb.append("  \"mode\": \"").append(mode).append("\",\n");
+        sb.append("  \"threads\": ").append(threads).append(",\n");
+        sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"scenarios\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("    ").append(results.get(i).toJSON()).append((i < results.size() - 1) ? ",\n" : "\n");
+        }
+        sb.append("  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    // B5 - Throughput of each scenario of the baseline JSON (written by this benchmark)
+    private static Map<String, Double> readBaseline(File file) throws IOException {
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Map<String, Double> baseline = new HashMap<>();
+        Matcher matcher = Pattern.compile("\"name\": \"([^\"]+)\"[^}]*\"glyphsPerSecond\": ([0-9.]+)").matcher(json);
+        while (matcher.find()) {
+            baseline.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+        }
+        return baseline;
+    }
+
+    // B6 - Run the benchmark, exit code is 1 if any scenario regressed (2 for wrong usage)
+    public static void main(String[] args) throws IOException, InterruptedException, FontFormatException {
+        String fontName = "DejaVu Sans";
+        FontExporter.ExportMode mode = FontExporter.ExportMode.PARALLEL;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int rounds = 3;
+        List<String> scenarios = Arrays.asList(SCENARIO_NAMES);
+        File json = null;
+        File baseline = null;
+        File saveBaseline = null;
+        double threshold = 10.0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = (i + 1 < args.length) ? args[i + 1] : null;
+                switch (args[i]) {
+                    case "--font":
+                        fontName = value;
+                        break;
+                    case "--mode":
+                        mode = FontExporter.ExportMode.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--rounds":
+                        rounds = Integer.parseInt(value);
+                        break;
+                    case "--scenarios":
+                        scenarios = Arrays.asList(value.split(","));
+                        break;
+                    case "--json":
+                        json = new File(value);
+                        break;
+                    case "--baseline":
+                        baseline = new File(value);
+                        break;
+                    case "--threshold":
+                        threshold = Double.parseDouble(value);
+                        break;
+                    case "--save-baseline":
+                        saveBaseline = new File(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+                i++;
+            }
+        } catch (NullPointerException | IllegalArgumentException ex) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        File fontFile = new File(fontName);
+        Font font = fontFile.isFile() ? Font.createFont(Font.TRUETYPE_FONT, fontFile) : new Font(fontName, Font.PLAIN, 12);
+        List<Result> results = new ArrayList<>();
+        for (String scenario : scenarios) {
+            Result result = run(scenario, font, mode, threads, rounds);
+            System.err.println(String.format(Locale.ROOT, "%-16s %7d glyphs %8d ms %10.1f glyphs/s %8.1f MB/s allocated %10d bytes",
+                    result.name, result.glyphs, result.wallMillis, result.glyphsPerSecond, result.allocationRate / 1E6, result.outputBytes));
+            results.add(result);
+        }
+        String document = toJSON(font.getFontName(), mode, threads, results);
+        if (json != null) {
+            Files.write(json.toPath(), document.getBytes(StandardCharsets.UTF_8));
+        } else {
+            System.out.print(document);
+        }
+        if (saveBaseline != null) {
+            Files.write(saveBaseline.toPath(), document.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // regression is throughput worse than the baseline's by more than the threshold
+        boolean regressed = false;
+        if (baseline != null) {
+            Map<String, Double> expected = readBaseline(baseline);
+            for (Result result : results) {
+                Double previous = expected.get(result.name);
+                if (previous == null) {
+                    System.err.println(result.name + ": not in the baseline");
+                    continue;
+                }
+                double change = 100.0 * (result.glyphsPerSecond - previous) / previous;
+                boolean worse = change < -threshold;
+                regressed |= worse;
+                System.err.println(String.format(Locale.ROOT, "%s: %.1f glyphs/s, baseline %.1f (%+.1f%%)%s",
+                        result.name, result.glyphsPerSecond, previous, change, worse ? " REGRESSION" : ""));
+            }
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+}
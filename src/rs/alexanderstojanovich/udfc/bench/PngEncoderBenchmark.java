@@ -0,0 +1,137 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.bench;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import rs.alexanderstojanovich.udfc.util.CharRange;
+import rs.alexanderstojanovich.udfc.util.Effects;
+import rs.alexanderstojanovich.udfc.util.Palette;
+import rs.alexanderstojanovich.udfc.util.PngEncoder;
+import rs.alexanderstojanovich.udfc.util.Quantizer;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class PngEncoderBenchmark { // png encoding of whole Unicode blocks, ImageIO vs PngEncoder
+
+    // blocks of the char coverage (latin, latin extended, greek, cyrillic)
+    private static final CharRange[] BLOCKS = {CharRange.LATIN, CharRange.LATIN_EXT, CharRange.GREEK, CharRange.CYRILLIC};
+
+    // encodes the image, ImageIO or one of the encoders
+    private interface Encoder {
+
+        public void encode(BufferedImage image, ByteArrayOutputStream out) throws IOException;
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS (NONE, STATIC METHODS ONLY)
+    //--------------------------------------------------------------------------
+    private PngEncoderBenchmark() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    // B1 - Char image of the block glyph, antialiased and premultiplied like the ones in the export
+    private static BufferedImage renderChImg(Font font, char ch) {
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        Rectangle2D rect = font.getStringBounds(String.valueOf(ch), frc);
+        int w = (int) Math.round(rect.getWidth()) + 1;
+        int h = (int) Math.round(rect.getHeight()) + 1;
+        BufferedImage chImg = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D chRender = chImg.createGraphics();
+        chRender.translate(0, -rect.getY());
+        chRender.setFont(font);
+        chRender.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        chRender.setColor(Color.YELLOW);
+        chRender.drawString(String.valueOf(ch), 0, 0);
+        chRender.dispose();
+        Effects.premultiply(((DataBufferInt) chImg.getRaster().getDataBuffer()).getData(), w, h);
+        return chImg;
+    }
+
+    // B2 - Encode all the images several times, prints best time and total size
+    private static void measure(String name, List<BufferedImage> images, Encoder encoder, int rounds) throws IOException {
+        long best = Long.MAX_VALUE;
+        long bytes = 0L;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int r = 0; r < rounds; r++) {
+            bytes = 0L;
+            long begin = System.nanoTime();
+            for (BufferedImage image : images) {
+                out.reset();
+                encoder.encode(image, out);
+                bytes += out.size();
+            }
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        System.out.println(String.format("%-28s %8.2f ms %10d bytes %8.1f us/glyph",
+                name, best / 1e6, bytes, best / 1e3 / images.size()));
+    }
+
+    // B3 - Run the benchmark, args are font name, font size and number of rounds
+    public static void main(String[] args) throws IOException {
+        String fontName = (args.length > 0) ? args[0] : "Courier New";
+        int fontSize = (args.length > 1) ? Integer.parseInt(args[1]) : 24;
+        int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        Font font = new Font(fontName, Font.PLAIN, fontSize);
+
+        List<BufferedImage> argbImages = new ArrayList<>();
+        for (CharRange block : BLOCKS) {
+            for (int ch = block.getFirstChar(); ch <= block.getLastChar(); ch++) {
+                argbImages.add(renderChImg(font, (char) ch));
+            }
+        }
+        Quantizer quantizer = Palette.forName("Doom").getQuantizer();
+        List<BufferedImage> indexedImages = new ArrayList<>();
+        for (BufferedImage chImg : argbImages) {
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            indexedImages.add(quantizer.quantize(pixels, chImg.getWidth(), chImg.getHeight()));
+        }
+
+        System.out.println(String.format("%s %d, %d glyphs, best of %d rounds", font.getFontName(), fontSize, argbImages.size(), rounds));
+        Encoder imageIO = (image, out) -> ImageIO.write(image, "png", out);
+        PngEncoder[] encoders = {
+            new PngEncoder(1), new PngEncoder(6), new PngEncoder(9), new PngEncoder(9, true)
+        };
+        measure("ARGB ImageIO", argbImages, imageIO, rounds);
+        for (PngEncoder encoder : encoders) {
+            measure("ARGB PngEncoder " + encoder.getCompressionLevel() + (encoder.isAdaptiveFiltering() ? " adaptive" : ""),
+                    argbImages, encoder::encode, rounds);
+        }
+        measure("Indexed ImageIO", indexedImages, imageIO, rounds);
+        for (PngEncoder encoder : encoders) {
+            if (!encoder.isAdaptiveFiltering()) {
+                measure("Indexed PngEncoder " + encoder.getCompressionLevel(), indexedImages, encoder::encode, rounds);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,311 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.bench;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import rs.alexanderstojanovich.udfc.core.GlyphRenderer;
+import rs.alexanderstojanovich.udfc.core.RenderSettings;
+import rs.alexanderstojanovich.udfc.util.CharRange;
+import rs.alexanderstojanovich.udfc.util.ColorSample;
+import rs.alexanderstojanovich.udfc.util.DistanceField;
+import rs.alexanderstojanovich.udfc.util.EntryBuffer;
+import rs.alexanderstojanovich.udfc.util.Effects;
+import rs.alexanderstojanovich.udfc.util.GlyphCache;
+import rs.alexanderstojanovich.udfc.util.GlyphMask;
+import rs.alexanderstojanovich.udfc.util.Palette;
+import rs.alexanderstojanovich.udfc.util.PngEncoder;
+import rs.alexanderstojanovich.udfc.util.Quantizer;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class RenderBenchmark { // hot paths of the export (render, effects, colorize, quantize, encode) per font size and script
+
+    // scripts of the char coverage and their names
+    private static final String[] SCRIPT_NAMES = {"latin", "latin-ext", "greek", "cyrillic"};
+    private static final CharRange[] SCRIPTS = {CharRange.LATIN, CharRange.LATIN_EXT, CharRange.GREEK, CharRange.CYRILLIC};
+    // effect combinations of the giveChImg benchmarks (each one on top of antialiased yellow glyph)
+    private static final String[] COMBINATION_NAMES = {"plain", "antialias", "gradient", "outline 1", "shadow", "gradient+outline+shadow", "Doom palette",
+        "hard outline 2+hard shadow"};
+    // outline widths of the outline benchmarks
+    private static final int[] OUTLINE_WIDTHS = {1, 2, 3};
+    // shadow distances and radii of the reach check (distant shadows were clipped by the image once)
+    private static final int[] SHADOW_DISTANCES = {4, 10, 20};
+    private static final int[] SHADOW_RADII = {0, 3};
+    // rounds which aren't measured (JIT compiles the hot paths meanwhile)
+    private static final int WARMUP_ROUNDS = 2;
+
+    // does the work on one glyph, result is returned so it can't be optimized away
+    private interface Operation<T> {
+
+        public Object run(T glyph) throws IOException;
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS (NONE, STATIC METHODS ONLY)
+    //--------------------------------------------------------------------------
+    private RenderBenchmark() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    // B1 - Run the operation on all the glyphs several times (after the warm up rounds),
+    // prints best time per glyph
+    private static <T> void measure(String name, List<T> glyphs, Operation<T> operation, int rounds) throws IOException {
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+        for (int r = -WARMUP_ROUNDS; r < rounds; r++) {
+            long begin = System.nanoTime();
+            for (T glyph : glyphs) {
+                sink += System.identityHashCode(operation.run(glyph)) & 1;
+            }
+            if (r >= 0) {
+                best = Math.min(best, System.nanoTime() - begin);
+            }
+        }
+        System.out.println(String.format("  %-36s %10.2f ms %10.2f us/glyph%s",
+                name, best / 1e6, best / 1e3 / glyphs.size(), (sink < 0) ? "!" : ""));
+    }
+
+    // B2 - Effect combinations of giveChImg, in the order of their names
+    private static RenderSettings[] effectCombinations(Font font) {
+        RenderSettings base = RenderSettings.DEFAULT.toBuilder().setFont(font).setUseAntialias(true).build();
+        return new RenderSettings[]{
+            base.toBuilder().setUseAntialias(false).build(),
+            base,
+            base.toBuilder().setUseGradient(true).build(),
+            base.toBuilder().setOutlineWidth(1).build(),
+            base.toBuilder().setUseShadow(true).build(),
+            base.toBuilder().setOutlineWidth(1).setUseShadow(true).setUseGradient(true).build(),
+            base.toBuilder().setPalette(Palette.forName("Doom")).build(),
+            base.toBuilder().setUseAntialias(false).setOutlineWidth(2).setUseShadow(true).setShadowRadius(0).build()
+        };
+    }
+
+    // is the char drawn over the border of it's image without the effects (it's clipped anyway),
+    // marks drawn left of their origin (zero width) aren't in the image at all
+    private static boolean isOverhanging(GlyphRenderer renderer, Font font, char ch) {
+        GlyphMask mask = renderer.rasterizeMask(RenderSettings.DEFAULT.toBuilder().setFont(font).setUseAntialias(true).build(), ch);
+        int w = mask.getWidth();
+        int h = mask.getHeight();
+        byte[] coverage = mask.getCoverage();
+        boolean empty = true;
+        for (int py = 0; py < h; py++) {
+            for (int px = 0; px < w; px++) {
+                if (coverage[py * w + px] != 0) {
+                    if (px == 0 || px == w - 1 || py == 0 || py == h - 1) {
+                        return true;
+                    }
+                    empty = false;
+                }
+            }
+        }
+        return empty;
+    }
+
+    // B3 - Check that the distant shadows fit the image, shadow of each pixel of the char (moved by the distance
+    // and blurred over the radius) must be within the image, otherwise the benchmark fails.
+    // Chars drawn over their bounds (like 'J' in some fonts) are skipped, the room is around their bounds
+    private static void checkShadowReach(Font font, List<Character> chars) {
+        GlyphRenderer renderer = new GlyphRenderer(new GlyphCache(0L));
+        List<Character> fitting = new ArrayList<>();
+        for (char ch : chars) {
+            if (!isOverhanging(renderer, font, ch)) {
+                fitting.add(ch);
+            }
+        }
+        for (int distance : SHADOW_DISTANCES) {
+            for (int radius : SHADOW_RADII) {
+                for (int angle = 0; angle < 360; angle += 45) {
+                    RenderSettings settings = RenderSettings.DEFAULT.toBuilder().setFont(font).setUseAntialias(true)
+                            .setUseShadow(true).setShadowDistance(distance).setShadowRadius(radius).setShadowAngle(angle).build();
+                    final int dx = Effects.shadowOffset(distance, Math.cos(Math.toRadians(angle)));
+                    final int dy = Effects.shadowOffset(distance, Math.sin(Math.toRadians(angle)));
+                    for (char ch : fitting) {
+                        GlyphMask mask = renderer.rasterizeMask(settings, ch);
+                        int w = mask.getWidth();
+                        int h = mask.getHeight();
+                        byte[] coverage = mask.getCoverage();
+                        for (int py = 0; py < h; py++) {
+                            for (int px = 0; px < w; px++) {
+                                if (coverage[py * w + px] != 0
+                                        && (px + dx - radius < 0 || px + dx + radius >= w || py + dy - radius < 0 || py + dy + radius >= h)) {
+                                    throw new IllegalStateException(String.format("Shadow of '%c' (distance %d, radius %d, angle %d) doesn't fit %dx%d image!",
+                                            ch, distance, radius, angle, w, h));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(String.format("  shadow reach checked on %d glyphs (distances %s, radii %s)",
+                fitting.size(), Arrays.toString(SHADOW_DISTANCES), Arrays.toString(SHADOW_RADII)));
+    }
+
+    // B4 - Benchmark of one font size and one script
+    private static void run(String fontName, int fontSize, String scriptName, CharRange script, int rounds) throws IOException {
+        Font font = new Font(fontName, Font.PLAIN, fontSize);
+        List<Character> chars = new ArrayList<>();
+        for (int ch = script.getFirstChar(); ch <= script.getLastChar(); ch++) {
+            chars.add((char) ch);
+        }
+        System.out.println(String.format("%s %d, %s, %d glyphs, best of %d rounds", font.getFontName(), fontSize, scriptName, chars.size(), rounds));
+        checkShadowReach(font, chars);
+
+        // giveChImg, rendered every time (no cache) and from the cache
+        GlyphRenderer renderer = new GlyphRenderer(new GlyphCache(0L));
+        RenderSettings[] combinations = effectCombinations(font);
+        for (int i = 0; i < combinations.length; i++) {
+            final RenderSettings settings = combinations[i];
+            measure("giveChImg " + COMBINATION_NAMES[i], chars, (Character ch) -> renderer.giveChImg(settings, ch), rounds);
+        }
+        GlyphRenderer cachedRenderer = new GlyphRenderer();
+        final RenderSettings cachedSettings = combinations[1];
+        measure("giveChImg cached", chars, (Character ch) -> cachedRenderer.giveChImg(cachedSettings, ch), rounds);
+
+        // masks (no colors) and their colorizing, which is all that's left to do when only the colors are changed
+        measure("rasterizeMask", chars, (Character ch) -> renderer.rasterizeMask(cachedSettings, ch), rounds);
+        final RenderSettings effectSettings = combinations[5];
+        List<GlyphMask> masks = new ArrayList<>();
+        for (char ch : chars) {
+            GlyphMask mask = renderer.rasterizeMask(effectSettings, ch);
+            renderer.applyEffects(effectSettings, mask);
+            masks.add(mask);
+        }
+        measure("colorizeChImg " + COMBINATION_NAMES[5], masks, (GlyphMask mask) -> renderer.colorizeChImg(effectSettings, mask), rounds);
+
+        // glyphs for the effects, antialiased and premultiplied (like the ones before the effects)
+        List<BufferedImage> images = new ArrayList<>();
+        for (char ch : chars) {
+            BufferedImage chImg = renderer.rasterizeChImg(cachedSettings, ch);
+            renderer.applyEffects(cachedSettings, chImg);
+            images.add(chImg);
+        }
+
+        // distance field of each glyph, made once and thresholded into the outline of any width
+        measure("DistanceField.squaredDistances", images, (BufferedImage chImg) -> {
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            return DistanceField.squaredDistances(Effects.alpha(pixels, chImg.getWidth(), chImg.getHeight()), chImg.getWidth(), chImg.getHeight());
+        }, rounds);
+        List<GlyphMask> fields = new ArrayList<>();
+        for (BufferedImage chImg : images) {
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            GlyphMask field = new GlyphMask(chImg.getWidth(), chImg.getHeight(), Effects.alpha(pixels, chImg.getWidth(), chImg.getHeight()), 0.0f, 0.0f, 0.0);
+            field.setDistances(DistanceField.squaredDistances(field.getCoverage(), field.getWidth(), field.getHeight()));
+            fields.add(field);
+        }
+
+        // outline, ColorSample (raster samples per pixel) against Effects (summed area table)
+        // and the thresholded distance field, Effects works on a copy of the pixels (copy is cheap compared to the outline)
+        for (final int width : OUTLINE_WIDTHS) {
+            measure("ColorSample.getSample " + width, images, (BufferedImage chImg) -> {
+                WritableRaster wr = chImg.getRaster();
+                int sum = 0;
+                for (int py = 0; py < chImg.getHeight(); py++) {
+                    for (int px = 0; px < chImg.getWidth(); px++) {
+                        sum += ColorSample.getSample(wr, px, py, width).getAlpha();
+                    }
+                }
+                return sum;
+            }, rounds);
+            measure("Effects.outline " + width, images, (BufferedImage chImg) -> {
+                int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData().clone();
+                Effects.outline(pixels, chImg.getWidth(), chImg.getHeight(), width, Color.BLUE.getRGB());
+                return pixels;
+            }, rounds);
+            measure("DistanceField.outlineMask " + width, fields,
+                    (GlyphMask field) -> DistanceField.outlineMask(field.getCoverage(), field.getDistances(), width), rounds);
+        }
+
+        // blur (radius one), ColorSample against separable Effects
+        measure("ColorSample.getGaussianBlurSample", images, (BufferedImage chImg) -> {
+            WritableRaster wr = chImg.getRaster();
+            int sum = 0;
+            for (int py = 0; py < chImg.getHeight(); py++) {
+                for (int px = 0; px < chImg.getWidth(); px++) {
+                    sum += ColorSample.getGaussianBlurSample(wr, px, py).getAlpha();
+                }
+            }
+            return sum;
+        }, rounds);
+        measure("Effects.blurAlpha 1", images, (BufferedImage chImg) -> {
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            return Effects.blurAlpha(pixels, chImg.getWidth(), chImg.getHeight(), 1);
+        }, rounds);
+
+        // palette conversion of each palette
+        for (String paletteName : Palette.NAMES) {
+            Palette palette = Palette.forName(paletteName);
+            if (palette == null) {
+                continue;
+            }
+            final Quantizer quantizer = palette.getQuantizer();
+            measure("Quantizer " + paletteName, images, (BufferedImage chImg) -> {
+                int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+                return quantizer.quantize(pixels, chImg.getWidth(), chImg.getHeight());
+            }, rounds);
+        }
+
+        // png encoding, ARGB and indexed (Doom palette)
+        final PngEncoder encoder = new PngEncoder();
+        final EntryBuffer data = new EntryBuffer();
+        measure("PngEncoder ARGB", images, (BufferedImage chImg) -> {
+            data.reset();
+            encoder.encode(chImg, data);
+            return data;
+        }, rounds);
+        Quantizer doom = Palette.forName("Doom").getQuantizer();
+        List<BufferedImage> indexedImages = new ArrayList<>();
+        for (BufferedImage chImg : images) {
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            indexedImages.add(doom.quantize(pixels, chImg.getWidth(), chImg.getHeight()));
+        }
+        measure("PngEncoder indexed", indexedImages, (BufferedImage chImg) -> {
+            data.reset();
+            encoder.encode(chImg, data);
+            return data;
+        }, rounds);
+    }
+
+    // B5 - Run the benchmark, args are font name, font sizes (comma separated),
+    // scripts (comma separated latin, latin-ext, greek, cyrillic or all) and number of rounds
+    public static void main(String[] args) throws IOException {
+        String fontName = (args.length > 0) ? args[0] : "Courier New";
+        String[] fontSizes = ((args.length > 1) ? args[1] : "12,24,48").split(",");
+        List<String> scripts = Arrays.asList(((args.length > 2) ? args[2] : "all").split(","));
+        int rounds = (args.length > 3) ? Integer.parseInt(args[3]) : 5;
+        for (String fontSize : fontSizes) {
+            for (int i = 0; i < SCRIPTS.length; i++) {
+                if (scripts.contains("all") || scripts.contains(SCRIPT_NAMES[i])) {
+                    run(fontName, Integer.parseInt(fontSize.trim()), SCRIPT_NAMES[i], SCRIPTS[i], rounds);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,480 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.cli;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import rs.alexanderstojanovich.udfc.core.ExportMetrics;
+import rs.alexanderstojanovich.udfc.core.FontExporter;
+import rs.alexanderstojanovich.udfc.core.GlyphRenderer;
+import rs.alexanderstojanovich.udfc.core.ProgressMonitor;
+import rs.alexanderstojanovich.udfc.core.RenderSettings;
+import rs.alexanderstojanovich.udfc.util.CharRange;
+import rs.alexanderstojanovich.udfc.util.Palette;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class CLI { // makes the pk3 from the command line, without the GUI (works on headless machines)
+
+    // exit codes
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_STOPPED = 3;
+
+    // same choices as on the GUI
+    private static final String[] FONT_FORMATS = {"Console Font", "Small Font", "Big Font", "Big Upper"};
+
+    private static final String USAGE
+            = "Usage: java -cp UnicodeDoomFontCreator.jar rs.alexanderstojanovich.udfc.cli.CLI [options] -o <file.pk3>\n"
+            + "\n"
+            + "Font:\n"
+            + "  --font <name|file.ttf>     font family from the OS or TrueType file (default Courier New)\n"
+            + "  --size <points>            font size (default 12)\n"
+            + "  --style <style>            plain, bold, italic or bolditalic (default plain)\n"
+            + "  --format <format>          Console Font, Small Font, Big Font or Big Upper (default Console Font)\n"
+            + "  --ranges <list>            comma separated latin, latin-ext, cyrillic, greek\n"
+            + "                             or hex ranges like 0020-007F (default latin)\n"
+            + "\n"
+            + "Effects:\n"
+            + "  --multiplier <value>       multiplier of cell size (default 1.0)\n"
+            + "  --fg <RRGGBB>              foreground color (default FFFF00)\n"
+            + "  --bg <RRGGBB>              background (gradient) color (default 00FFFF)\n"
+            + "  --gradient                 two-color gradient from foreground to background color\n"
+            + "  --antialias                antialiased font\n"
+            + "  --outline <width>          outline width in pixels (default 0, no outline)\n"
+            + "  --outline-color <RRGGBB>   outline color (default 0000FF)\n"
+            + "  --shadow                   drop shadow\n"
+            + "  --shadow-color <RRGGBB>    shadow color (default 808080)\n"
+            + "  --shadow-angle <degrees>   shadow angle, clockwise (default 45)\n"
+            + "  --shadow-distance <px>     shadow distance (default 1)\n"
+            + "  --shadow-radius <px>       shadow blur radius, 0 for hard shadow (default 1)\n"
+            + "  --sdf                      distance field effects, outline, shadow and glow of any width\n"
+            + "  --glow <px>                glow radius around the char, needs --sdf (default 0, no glow)\n"
+            + "  --glow-color <RRGGBB>      glow color (default FFFFFF)\n"
+            + "  --palette <palette>        None, Doom, Heretic, Hexen, 6-bit RGB or 8-bit RGB (default None)\n"
+            + "\n"
+            + "Export:\n"
+            + "  -o, --output <file.pk3>    pk3 file to make (required)\n"
+            + "  --mode <mode>              sequential, parallel or pipelined (default parallel)\n"
+            + "  --threads <count>          rendering threads (default number of processors)\n"
+            + "  --compression <0-9>        deflate level of the glyph pngs (default 9)\n"
+            + "  --store                    store glyph entries without deflating them once more\n"
+            + "  --incremental              reuse glyphs of the previous pk3 made with the same settings\n"
+            + "  --no-resume                don't keep part file of the stopped job\n"
+            + "  -q, --quiet                no progress\n"
+            + "  -h, --help                 this help\n"
+            + "\n"
+            + "Exit codes: 0 - done, 1 - export failed, 2 - wrong usage, 3 - stopped (run it again to resume)\n";
+
+    // job settings, parsed from the arguments
+    private final RenderSettings.Builder settings = new RenderSettings.Builder();
+    private final GlyphRenderer renderer = new GlyphRenderer();
+    private final FontExporter exporter = new FontExporter(renderer);
+    private final List<CharRange> ranges = new ArrayList<>();
+    private String fontName = "Courier New";
+    private int fontStyle = Font.PLAIN;
+    private float fontSize = 12.0f;
+    private String fontFormat = "Console Font";
+    private String palette = "None";
+    private File fontPK3;
+    private boolean quiet = false;
+    private boolean help = false;
+
+    // wrong usage (argument which can't be parsed)
+    private static class UsageException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        public UsageException(String message) {
+            super(message);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    private CLI() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    public static void main(String[] args) {
+        // no display needed, nor wanted
+        System.setProperty("java.awt.headless", "true");
+        // unattended exports can be watched (and stopped or paused) from JConsole/VisualVM
+        ExportMetrics.register();
+        System.exit(run(args, System.out, System.err));
+    }
+
+    // make the pk3 as the arguments say, returns the exit code
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        CLI cli = new CLI();
+        try {
+            cli.parse(args);
+            if (cli.help) {
+                out.print(USAGE);
+                return EXIT_OK;
+            }
+            cli.setUp();
+        } catch (UsageException ex) {
+            err.println("udfc: " + ex.getMessage());
+            err.println("Try --help for the options.");
+            return EXIT_USAGE;
+        }
+        return cli.export(out, err);
+    }
+
+    // read the options
+    private void parse(String[] args) throws UsageException {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    help = true;
+                    break;
+                case "--font":
+                    fontName = value(args, ++i, arg);
+                    break;
+                case "--size":
+                    fontSize = (float) number(args, ++i, arg, 1.0, 1000.0);
+                    break;
+                case "--style":
+                    fontStyle = parseStyle(value(args, ++i, arg));
+                    break;
+                case "--format":
+                    fontFormat = choice(value(args, ++i, arg), FONT_FORMATS, arg);
+                    break;
+                case "--ranges":
+                    for (String token : value(args, ++i, arg).split(",")) {
+                        ranges.add(parseRange(token.trim()));
+                    }
+                    break;
+                case "--multiplier":
+                    settings.setMultiplier(number(args, ++i, arg, 0.0, 100.0));
+                    break;
+                case "--fg":
+                    settings.setFgColor(parseColor(value(args, ++i, arg)));
+                    break;
+                case "--bg":
+                    settings.setBgColor(parseColor(value(args, ++i, arg)));
+                    break;
+                case "--gradient":
+                    settings.setUseGradient(true);
+                    break;
+                case "--antialias":
+                    settings.setUseAntialias(true);
+                    break;
+                case "--outline":
+                    settings.setOutlineWidth((int) number(args, ++i, arg, 0, 64));
+                    break;
+                case "--outline-color":
+                    settings.setOutlineColor(parseColor(value(args, ++i, arg)));
+                    break;
+                case "--shadow":
+                    settings.setUseShadow(true);
+                    break;
+                case "--shadow-color":
+                    settings.setShadowColor(parseColor(value(args, ++i, arg)));
+                    break;
+                case "--shadow-angle":
+                    settings.setShadowAngle((int) number(args, ++i, arg, -360, 360));
+                    break;
+                case "--shadow-distance":
+                    settings.setShadowDistance((int) number(args, ++i, arg, 0, 64));
+                    break;
+                case "--shadow-radius":
+                    settings.setShadowRadius((int) number(args, ++i, arg, 0, 64));
+                    break;
+                case "--sdf":
+                    settings.setUseDistanceField(true);
+                    break;
+                case "--glow":
+                    settings.setGlowRadius((int) number(args, ++i, arg, 0, 64));
+                    break;
+                case "--glow-color":
+                    settings.setGlowColor(parseColor(value(args, ++i, arg)));
+                    break;
+                case "--palette":
+                    palette = choice(value(args, ++i, arg), Palette.NAMES, arg);
+                    break;
+                case "-o":
+                case "--output":
+                    fontPK3 = new File(value(args, ++i, arg));
+                    break;
+                case "--mode":
+                    try {
+                        exporter.setExportMode(FontExporter.ExportMode.valueOf(value(args, ++i, arg).toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException ex) {
+                        throw new UsageException("unknown mode " + args[i] + ", expected one of "
+                                + Arrays.toString(FontExporter.ExportMode.values()));
+                    }
+                    break;
+                case "--threads":
+                    exporter.setParallelism((int) number(args, ++i, arg, 1, 1024));
+                    break;
+                case "--compression":
+                    exporter.setCompressionLevel((int) number(args, ++i, arg, 0, 9));
+                    break;
+                case "--store":
+                    exporter.setStoreGlyphs(true);
+                    break;
+                case "--incremental":
+                    exporter.setIncremental(true);
+                    break;
+                case "--no-resume":
+                    exporter.setResumable(false);
+                    break;
+                case "-q":
+                case "--quiet":
+                    quiet = true;
+                    break;
+                default:
+                    throw new UsageException("unknown option " + arg);
+            }
+        }
+        if (!help && fontPK3 == null) {
+            throw new UsageException("output file is missing (-o file.pk3)");
+        }
+    }
+
+    // set up the renderer with the font and the palette
+    private void setUp() throws UsageException {
+        Font font;
+        File fontFile = new File(fontName);
+        if (fontFile.isFile()) {
+            try {
+                font = Font.createFont(Font.TRUETYPE_FONT, fontFile).deriveFont(fontStyle, fontSize);
+            } catch (FontFormatException | IOException ex) {
+                throw new UsageException("can't load font file " + fontName + " (" + ex.getMessage() + ")");
+            }
+        } else {
+            if (!Arrays.asList(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames()).contains(fontName)) {
+                throw new UsageException("font " + fontName + " not found");
+            }
+            font = new Font(fontName, fontStyle, 12).deriveFont(fontSize);
+        }
+        settings.setFont(font);
+        settings.setPalette(Palette.forName(palette));
+        if (ranges.isEmpty()) {
+            ranges.add(CharRange.LATIN);
+        }
+        // ascending code points, just like the GUI does, each one only once (pk3 can't have the same glyph twice)
+        ranges.sort((CharRange o1, CharRange o2) -> (o1.getFirstChar() - o2.getFirstChar()));
+        mergeRanges(ranges);
+        fontPK3 = FontExporter.pk3File(fontPK3);
+    }
+
+    // make the pk3 and print the throughput, returns the exit code
+    private int export(PrintStream out, PrintStream err) {
+        int[] codePoints = FontExporter.codePoints(ranges);
+        // progress is published at the refresh rate by the reporter thread (job only counts the glyphs)
+        Timer reporter = null;
+        if (!quiet) {
+            exporter.getMonitor().addListener(new ProgressMonitor.ProgressListener() {
+                private int percent = -1;
+
+                @Override
+                public synchronized void progress(ProgressMonitor.Progress progress) {
+                    int value = progress.getPercent();
+                    if (value / 10 != percent / 10) {
+                        percent = value;
+                        err.println(progress);
+                    }
+                }
+            });
+            reporter = new Timer("Progress Reporter", true);
+            reporter.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    exporter.getMonitor().publish();
+                }
+            }, ProgressMonitor.REFRESH_MILLIS, ProgressMonitor.REFRESH_MILLIS);
+        }
+        // Ctrl+C stops the job, stopped job writes it's checkpoint before the exit,
+        // JVM is shutting down already (System.exit of main would block), so the hook exits with the status of the job
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicInteger exitStatus = new AtomicInteger(EXIT_FAILED);
+        Thread stopper = new Thread("Job Stopper") {
+            @Override
+            public void run() {
+                exporter.setStopRequested(true);
+                try {
+                    finished.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                Runtime.getRuntime().halt(exitStatus.get());
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(stopper);
+        long begin = System.nanoTime();
+        int status = EXIT_FAILED;
+        try {
+            boolean done;
+            try {
+                done = exporter.export(settings.build(), fontPK3, fontFormat, codePoints);
+            } catch (IOException | InterruptedException ex) {
+                err.println("udfc: export failed - " + ex);
+                return status;
+            } finally {
+                if (reporter != null) {
+                    reporter.cancel();
+                    exporter.getMonitor().publish();
+                }
+            }
+            long millis = Math.max((System.nanoTime() - begin) / 1000000L, 1L);
+            if (!done) {
+                err.println("udfc: job stopped" + (exporter.isResumable() ? ", run the same job again to resume it" : ""));
+                status = EXIT_STOPPED;
+                return status;
+            }
+            out.println(String.format(Locale.ROOT, "%s: %d glyphs, %d bytes in %d ms (%.1f glyphs/s, %.1f KiB/s)",
+                    fontPK3.getPath(), codePoints.length, fontPK3.length(), millis,
+                    codePoints.length * 1000.0 / millis, fontPK3.length() * 1000.0 / 1024.0 / millis));
+            status = EXIT_OK;
+            return status;
+        } finally {
+            exitStatus.set(status);
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(stopper);
+            } catch (IllegalStateException ex) {
+                // already shutting down
+            }
+        }
+    }
+
+    // value of the option at the index
+    private static String value(String[] args, int index, String option) throws UsageException {
+        if (index >= args.length) {
+            throw new UsageException("option " + option + " needs a value");
+        }
+        return args[index];
+    }
+
+    // number value of the option at the index, in [min, max]
+    private static double number(String[] args, int index, String option, double min, double max) throws UsageException {
+        String value = value(args, index, option);
+        double number;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new UsageException("option " + option + " needs a number, not " + value);
+        }
+        if (number < min || number > max) {
+            throw new UsageException("option " + option + " must be in [" + min + ", " + max + "]");
+        }
+        return number;
+    }
+
+    // one of the choices, case, spaces and dashes don't matter
+    private static String choice(String value, String[] choices, String option) throws UsageException {
+        String key = value.replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT);
+        for (String choice : choices) {
+            if (choice.replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT).equals(key)) {
+                return choice;
+            }
+        }
+        throw new UsageException("unknown " + option.substring(2) + " " + value + ", expected one of " + Arrays.toString(choices));
+    }
+
+    private static int parseStyle(String style) throws UsageException {
+        switch (style.replaceAll("[\\s_+-]", "").toLowerCase(Locale.ROOT)) {
+            case "plain":
+                return Font.PLAIN;
+            case "bold":
+                return Font.BOLD;
+            case "italic":
+                return Font.ITALIC;
+            case "bolditalic":
+            case "italicbold":
+                return Font.BOLD | Font.ITALIC;
+            default:
+                throw new UsageException("unknown style " + style);
+        }
+    }
+
+    // RRGGBB, with or without #
+    private static Color parseColor(String color) throws UsageException {
+        String hex = color.startsWith("#") ? color.substring(1) : color;
+        if (!hex.matches("[0-9A-Fa-f]{6}")) {
+            throw new UsageException("color must be RRGGBB, not " + color);
+        }
+        return new Color(Integer.parseInt(hex, 16));
+    }
+
+    // merge overlapping and adjacent ranges (sorted by their first char) into one
+    private static void mergeRanges(List<CharRange> ranges) {
+        List<CharRange> merged = new ArrayList<>();
+        for (CharRange range : ranges) {
+            CharRange last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.getFirstChar() <= last.getLastChar() + 1) {
+                merged.set(merged.size() - 1, new CharRange(last.getFirstChar(), Math.max(last.getLastChar(), range.getLastChar())));
+            } else {
+                merged.add(range);
+            }
+        }
+        ranges.clear();
+        ranges.addAll(merged);
+    }
+
+    // named range or hex range (like 0020-007F or single 00A9)
+    private static CharRange parseRange(String range) throws UsageException {
+        switch (range.toLowerCase(Locale.ROOT)) {
+            case "latin":
+                return CharRange.LATIN;
+            case "latin-ext":
+            case "latinext":
+                return CharRange.LATIN_EXT;
+            case "cyrillic":
+                return CharRange.CYRILLIC;
+            case "greek":
+                return CharRange.GREEK;
+            default:
+                break;
+        }
+        if (!range.matches("[0-9A-Fa-f]{1,4}(-[0-9A-Fa-f]{1,4})?")) {
+            throw new UsageException("unknown range " + range);
+        }
+        String[] bounds = range.split("-");
+        int first = Integer.parseInt(bounds[0], 16);
+        int last = (bounds.length > 1) ? Integer.parseInt(bounds[1], 16) : first;
+        if (first > last) {
+            throw new UsageException("range " + range + " is empty");
+        }
+        return new CharRange(first, last);
+    }
+
+}
@@ -0,0 +1,84 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class CancellationToken { // stop (and pause) request of one job, once cancelled it stays cancelled
+
+    private volatile boolean cancelled = false;
+    // paused job waits at the next glyph until it's resumed (or cancelled)
+    private volatile boolean paused = false;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public CancellationToken() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // request the stop, job checks the token and stops promptly
+    public void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    // request the pause, job waits at the next glyph
+    public void pause() {
+        paused = true;
+    }
+
+    // paused job continues
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    // job waits here while it's paused, cheap when it's not (no lock)
+    public void awaitResumed() {
+        if (!paused) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                while (paused && !cancelled) {
+                    wait();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+}
@@ -0,0 +1,317 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import rs.alexanderstojanovich.udfc.util.GlyphCache;
+import rs.alexanderstojanovich.udfc.util.LatencyHistogram;
+import rs.alexanderstojanovich.udfc.util.Pipeline;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class ExportMetrics implements ExportMetricsMXBean { // metrics of all the exports of the program, registered as MXBean
+
+    // name of the MXBean in the platform MBean server
+    public static final String OBJECT_NAME = "rs.alexanderstojanovich.udfc:type=ExportMetrics";
+
+    // the one and only, renderer and exporters record into it
+    public static final ExportMetrics INSTANCE = new ExportMetrics();
+
+    // timed stages of the glyph
+    public enum Stage {
+        RASTERIZE, DISTANCE_FIELD, OUTLINE, GLOW, SHADOW, COLORIZE, QUANTIZE, ENCODE, WRITE
+    }
+
+    // timings of one stage (in microseconds), as shown by JConsole
+    public static class StageTiming {
+
+        private final String stage;
+        private final long count;
+        private final long totalMillis;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        @ConstructorProperties({"stage", "count", "totalMillis", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "maxMicros"})
+        public StageTiming(String stage, long count, long totalMillis, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.stage = stage;
+            this.count = count;
+            this.totalMillis = totalMillis;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP90Micros() {
+            return p90Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    // durations of each stage
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    // totals of the finished and the running jobs
+    private final LongAdder jobsFinished = new LongAdder();
+    private final LongAdder glyphsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    // exporters running their jobs
+    private final Set<FontExporter> jobs = ConcurrentHashMap.newKeySet();
+    // glyph cache of the last job which started
+    private volatile GlyphCache lastCache;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    private ExportMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // register the MXBean (once), so the exports can be watched and controlled from JConsole/VisualVM
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(ExportMetrics.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // stage which began at the given time has ended
+    public void record(Stage stage, long beginNanos) {
+        histograms[stage.ordinal()].record(System.nanoTime() - beginNanos);
+    }
+
+    // glyph entry of the given size is written (any job)
+    public void glyphWritten(long bytes) {
+        glyphsWritten.increment();
+        bytesWritten.add(bytes);
+    }
+
+    // exporter began the job
+    public void jobStarted(FontExporter exporter) {
+        jobs.add(exporter);
+        lastCache = exporter.getRenderer().getGlyphCache();
+    }
+
+    // exporter ended the job (done, stopped or failed)
+    public void jobFinished(FontExporter exporter) {
+        if (jobs.remove(exporter)) {
+            jobsFinished.increment();
+        }
+    }
+
+    @Override
+    public String getJobState() {
+        if (jobs.isEmpty()) {
+            return "IDLE";
+        }
+        boolean paused = false;
+        for (FontExporter exporter : jobs) {
+            if (exporter.getToken().isCancelled()) {
+                return "STOPPING";
+            }
+            paused |= exporter.getToken().isPaused();
+        }
+        return paused ? "PAUSED" : "RUNNING";
+    }
+
+    @Override
+    public int getRunningJobs() {
+        return jobs.size();
+    }
+
+    @Override
+    public long getJobGlyphsDone() {
+        long done = 0L;
+        for (FontExporter exporter : jobs) {
+            done += exporter.getMonitor().snapshot().getDone();
+        }
+        return done;
+    }
+
+    @Override
+    public long getJobGlyphsTotal() {
+        long total = 0L;
+        for (FontExporter exporter : jobs) {
+            total += exporter.getMonitor().getTotal();
+        }
+        return total;
+    }
+
+    @Override
+    public long getJobsFinished() {
+        return jobsFinished.sum();
+    }
+
+    @Override
+    public long getGlyphsWritten() {
+        return glyphsWritten.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public List<StageTiming> getStageTimings() {
+        List<StageTiming> timings = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            timings.add(new StageTiming(stage.name().toLowerCase(), histogram.getCount(), histogram.getSum() / 1000000L,
+                    histogram.getMean() / 1000L, histogram.percentile(0.5) / 1000L, histogram.percentile(0.9) / 1000L,
+                    histogram.percentile(0.99) / 1000L, histogram.getMax() / 1000L));
+        }
+        return timings;
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = getCacheHits();
+        long total = hits + getCacheMisses();
+        return (total == 0L) ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public long getCacheHits() {
+        GlyphCache cache = lastCache;
+        return (cache == null) ? 0L : cache.getHits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        GlyphCache cache = lastCache;
+        return (cache == null) ? 0L : cache.getMisses();
+    }
+
+    @Override
+    public int getCacheEntries() {
+        GlyphCache cache = lastCache;
+        return (cache == null) ? 0 : cache.getEntries();
+    }
+
+    @Override
+    public long getCacheSizeBytes() {
+        GlyphCache cache = lastCache;
+        return (cache == null) ? 0L : cache.getSize();
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (FontExporter exporter : jobs) {
+            for (Pipeline.StageStats stats : exporter.getPipelineStats()) {
+                Integer depth = depths.get(stats.getName());
+                depths.put(stats.getName(), ((depth != null) ? depth : 0) + stats.getQueueDepth());
+            }
+        }
+        return depths;
+    }
+
+    @Override
+    public void stop() {
+        for (FontExporter exporter : jobs) {
+            exporter.getToken().cancel();
+        }
+    }
+
+    @Override
+    public void pause() {
+        for (FontExporter exporter : jobs) {
+            exporter.getToken().pause();
+        }
+    }
+
+    @Override
+    public void resume() {
+        for (FontExporter exporter : jobs) {
+            exporter.getToken().resume();
+        }
+    }
+
+    @Override
+    public void resetStatistics() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        jobsFinished.reset();
+        glyphsWritten.reset();
+        bytesWritten.reset();
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+}
@@ -0,0 +1,71 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public interface ExportMetricsMXBean { // live export and render metrics for JConsole/VisualVM, with control of the jobs
+
+    // IDLE, RUNNING, PAUSED or STOPPING
+    public String getJobState();
+
+    public int getRunningJobs();
+
+    // glyphs written by the running jobs and their total
+    public long getJobGlyphsDone();
+
+    public long getJobGlyphsTotal();
+
+    // since the start (or the reset) of the statistics
+    public long getJobsFinished();
+
+    public long getGlyphsWritten();
+
+    public long getBytesWritten();
+
+    // cumulative and percentile timings of rasterize, outline, shadow, quantize, encode and write
+    public List<ExportMetrics.StageTiming> getStageTimings();
+
+    // glyph cache of the running (or the last) job
+    public double getCacheHitRate();
+
+    public long getCacheHits();
+
+    public long getCacheMisses();
+
+    public int getCacheEntries();
+
+    public long getCacheSizeBytes();
+
+    // input queue of each pipeline stage of the running pipelined jobs
+    public Map<String, Integer> getQueueDepths();
+
+    // stop the running jobs (they keep their part files)
+    public void stop();
+
+    // pause the running jobs at the next glyph
+    public void pause();
+
+    public void resume();
+
+    public void resetStatistics();
+}
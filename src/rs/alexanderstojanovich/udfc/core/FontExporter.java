@@ -0,0 +1,803 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import rs.alexanderstojanovich.udfc.util.CharRange;
+import rs.alexanderstojanovich.udfc.util.Checkpoint;
+import rs.alexanderstojanovich.udfc.util.EntryBuffer;
+import rs.alexanderstojanovich.udfc.util.GlyphCache;
+import rs.alexanderstojanovich.udfc.util.GlyphMask;
+import rs.alexanderstojanovich.udfc.util.Manifest;
+import rs.alexanderstojanovich.udfc.util.Pipeline;
+import rs.alexanderstojanovich.udfc.util.PngEncoder;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class FontExporter { // makes the pk3 archive from the glyphs of the renderer, no Swing in here
+
+    // how the glyphs are made; one by one, in fork join pool
+    // or in pipeline of stages (rasterize, effects, quantize, encode, write)
+    public enum ExportMode {
+        SEQUENTIAL, PARALLEL, PIPELINED
+    }
+
+    // renders the glyphs
+    private final GlyphRenderer renderer;
+    // progress of the job, counted lock-free as the glyphs are written (read by the reporters)
+    private final ProgressMonitor monitor = new ProgressMonitor();
+
+    // export mode of the job
+    private ExportMode exportMode = ExportMode.PARALLEL;
+
+    // stop request of the job (token is cancelled), job stops promptly
+    private volatile CancellationToken token = new CancellationToken();
+
+    // number of threads rendering glyphs in parallel (one means sequential)
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    // glyphs rendered in the pool before the glyphs are written into the archive
+    private static final int PARALLEL_CHUNK_SIZE = 256;
+    // buffer between the archive stream and the file
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+    // capacity of each queue between the pipeline stages
+    private int pipelineQueueSize = 64;
+    // pipeline of the current (or last) pipelined job, for the stage statistics
+    private Pipeline<GlyphItem> pipeline;
+
+    // png writer of the glyphs, replaced when compression level changes
+    private volatile PngEncoder pngEncoder = new PngEncoder();
+    // glyph entries are stored uncompressed (png is compressed already), otherwise they are deflated once more
+    // (default, indexed pngs are barely compressed and deflate still makes their archive smaller)
+    private boolean storeGlyphs = false;
+
+    // incremental export, glyphs from the previous pk3 made with the same settings are copied, not rendered
+    private boolean incremental = false;
+    // previous pk3 and it's glyph entries which can be copied (during the incremental job)
+    private ZipFile previousPK3;
+    private Map<Integer, ZipEntry> reusable = Collections.emptyMap();
+    // manifest of the pk3 being made
+    private Manifest manifest;
+
+    // pk3 file of the current job and it's render settings (snapshot taken when the job starts)
+    private File fontPK3;
+    private RenderSettings settings;
+
+    // resumable job, archive is written into the part file and progress into the checkpoint file,
+    // stopped or crashed job continues from it's last checkpoint when it's run again
+    private boolean resumable = true;
+    public static final String PART_SUFFIX = ".part";
+    public static final String CHECKPOINT_SUFFIX = ".part.checkpoint";
+    // glyphs written between two checkpoints
+    private static final int CHECKPOINT_INTERVAL = 256;
+    // checkpoint of the current job (null if job isn't resumable), it's file and the part file stream
+    private Checkpoint checkpoint;
+    private File checkpointFile;
+    private FileOutputStream partOut;
+    // glyphs written into the archive by the current job
+    private int glyphsWritten = 0;
+    // png bytes of the written glyphs, bytes of their entries (stored or deflated) and time of writing them,
+    // logged after the job so stored and deflated glyphs can be compared
+    private long glyphBytes = 0L;
+    private long glyphEntryBytes = 0L;
+    private long glyphWriteNanos = 0L;
+
+    // glyph going through the pipeline, each stage fills in it's part
+    private static class GlyphItem {
+
+        private final int codePoint;
+        private GlyphCache.Key key;
+        private BufferedImage chImg;
+        // mask of the glyph (if the colors are opaque), fresh one is without effects and not cached yet
+        private GlyphMask mask;
+        private boolean freshMask;
+        private boolean cached;
+        private boolean reused;
+        private EntryBuffer data;
+        // flight recorder event of the render and the stage durations (nanoseconds) so far
+        private Object renderEvent;
+        private long rasterizeNanos;
+        private long effectsNanos;
+
+        public GlyphItem(int codePoint) {
+            this.codePoint = codePoint;
+        }
+    }
+
+    // task which renders and encodes glyphs [lo, hi) of the chunk,
+    // splits in halves, so idle threads steal the other half (glyph cost varies a lot)
+    private class GlyphTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] codePoints;
+        private final EntryBuffer[] chunk;
+        private final int offset;
+        private final int lo;
+        private final int hi;
+
+        public GlyphTask(int[] codePoints, EntryBuffer[] chunk, int offset, int lo, int hi) {
+            this.codePoints = codePoints;
+            this.chunk = chunk;
+            this.offset = offset;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                if (!token.isCancelled()) {
+                    try {
+                        encodeGlyph(codePoints[offset + lo], chunk[lo]);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new GlyphTask(codePoints, chunk, offset, lo, mid),
+                        new GlyphTask(codePoints, chunk, offset, mid, hi));
+            }
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public FontExporter(GlyphRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    // exporter with the same renderer and export options (for another job), progress monitor and png encoder
+    // (deflaters of the job threads) are it's own
+    public FontExporter(FontExporter other) {
+        this.renderer = other.renderer;
+        this.exportMode = other.exportMode;
+        this.parallelism = other.parallelism;
+        this.pipelineQueueSize = other.pipelineQueueSize;
+        this.pngEncoder = new PngEncoder(other.pngEncoder.getCompressionLevel(), other.pngEncoder.isAdaptiveFiltering());
+        this.storeGlyphs = other.storeGlyphs;
+        this.incremental = other.incremental;
+        this.resumable = other.resumable;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // Since GZDoom you can make font folder with font pics.. cool!
+    // main entry of .pk3 for the font format, null if there is no such format
+    public static String fontDirName(String fontFormat) {
+        switch (fontFormat) {
+            case "Console Font":
+                return "consolefont";
+            case "Small Font":
+                return "defsmallfont";
+            case "Big Font":
+                return "bigfont";
+            case "Big Upper":
+                return "bigupper";
+            default:
+                return null;
+        }
+    }
+
+    // file with .pk3 extension
+    public static File pk3File(File file) {
+        if (!file.getName().contains(".pk3")) {
+            return new File(file.getAbsolutePath() + ".pk3");
+        }
+        return file;
+    }
+
+    // code points of the ranges, in the order of the ranges
+    public static int[] codePoints(List<CharRange> ranges) {
+        int total = 0;
+        for (CharRange pair : ranges) {
+            total += Math.max(pair.getLastChar() - pair.getFirstChar() + 1, 0);
+        }
+        int[] codePoints = new int[total];
+        int index = 0;
+        for (CharRange pair : ranges) {
+            for (int i = pair.getFirstChar(); i <= pair.getLastChar(); i++) {
+                codePoints[index++] = i;
+            }
+        }
+        return codePoints;
+    }
+
+    // create the pk3 file with the glyphs of the code points (in that order), returns true if all of them
+    // are written or false if the job is stopped (part file of resumable job is kept then)
+    public boolean export(RenderSettings settings, File fontPK3, String fontFormat, int[] codePoints) throws IOException, InterruptedException {
+        return export(settings, fontPK3, fontFormat, codePoints, token);
+    }
+
+    // same as above, job stops when the token is cancelled
+    public boolean export(RenderSettings settings, File fontPK3, String fontFormat, int[] codePoints, CancellationToken token) throws IOException, InterruptedException {
+        this.token = token;
+        this.settings = settings;
+        this.fontPK3 = fontPK3;
+        // all the entries get the same time so archive depends only on it's content
+        long entryTime = System.currentTimeMillis();
+        long jobBegin = System.nanoTime();
+        final String fontDirName = fontDirName(fontFormat);
+        if (fontDirName == null) {
+            throw new IllegalArgumentException("Unknown font format: " + fontFormat);
+        }
+        final String dirEntryName = "filter/doom.id/fonts/" + fontDirName + "/";
+        // png data depends on the render settings and the compression level
+        String settingsHash = Manifest.hash(settings.getSignature() + "|png=" + pngEncoder.getCompressionLevel());
+        manifest = new Manifest(settingsHash, dirEntryName);
+        glyphsWritten = 0;
+        glyphBytes = 0L;
+        glyphEntryBytes = 0L;
+        glyphWriteNanos = 0L;
+        monitor.start(codePoints.length);
+        // archive is written into temporary file (part file if job is resumable) next to the pk3,
+        // which replaces the pk3 when it's complete, so failed job leaves the old pk3 as it was
+        File tempPK3 = null;
+        // part file of the stopped job (same one) which is resumed
+        File previousPart = null;
+        int resumeLimit = 0;
+        ZipOutputStream zos = null;
+        ExportMetrics.INSTANCE.jobStarted(this);
+        try {
+            if (resumable) {
+                tempPK3 = new File(fontPK3.getPath() + PART_SUFFIX);
+                checkpointFile = new File(fontPK3.getPath() + CHECKPOINT_SUFFIX);
+                String jobHash = codePoints.length + ":" + Integer.toHexString(Arrays.hashCode(codePoints));
+                Checkpoint previous = Checkpoint.read(checkpointFile);
+                checkpoint = new Checkpoint(settingsHash, dirEntryName, jobHash, entryTime);
+                if (previous != null && previous.matches(checkpoint)) {
+                    // previous part exists only if resuming crashed while copying, it's still complete then
+                    previousPart = new File(fontPK3.getPath() + PART_SUFFIX + ".prev");
+                    if (!previousPart.exists() && tempPK3.exists()) {
+                        Files.move(tempPK3.toPath(), previousPart.toPath());
+                    }
+                    if (previousPart.exists()) {
+                        entryTime = previous.getEntryTime();
+                        resumeLimit = previous.getDone();
+                        checkpoint = new Checkpoint(settingsHash, dirEntryName, jobHash, entryTime);
+                    } else {
+                        previousPart = null;
+                    }
+                }
+                // stale checkpoint must not point to the new part file
+                checkpoint.write(checkpointFile);
+            } else {
+                tempPK3 = File.createTempFile(fontPK3.getName() + ".", ".tmp", fontPK3.getAbsoluteFile().getParentFile());
+            }
+            partOut = new FileOutputStream(tempPK3);
+            zos = new ZipOutputStream(new BufferedOutputStream(partOut, OUTPUT_BUFFER_SIZE));
+            StringBuilder sb = new StringBuilder();
+
+            sb.append("filter/");
+            ZipEntry firstDirEntry = new ZipEntry(sb.toString());
+            firstDirEntry.setTime(entryTime);
+            zos.putNextEntry(firstDirEntry);
+            zos.closeEntry();
+
+            sb.append("doom.id/");
+            ZipEntry secondDirEntry = new ZipEntry(sb.toString());
+            secondDirEntry.setTime(entryTime);
+            zos.putNextEntry(secondDirEntry);
+            zos.closeEntry();
+
+            sb.append("fonts/");
+            ZipEntry thirdDirEntry = new ZipEntry(sb.toString());
+            thirdDirEntry.setTime(entryTime);
+            zos.putNextEntry(thirdDirEntry);
+            zos.closeEntry();
+
+            sb.append(fontDirName).append("/");
+            ZipEntry fourthDirEntry = new ZipEntry(sb.toString());
+            fourthDirEntry.setTime(entryTime);
+            zos.putNextEntry(fourthDirEntry);
+            zos.closeEntry();
+
+            if (incremental) {
+                openPreviousPK3(settingsHash, dirEntryName, codePoints);
+            }
+            int[] jobCodePoints = codePoints;
+            if (previousPart != null) {
+                int resumed = resumePart(zos, previousPart, dirEntryName, codePoints, resumeLimit, entryTime);
+                previousPart.delete();
+                jobCodePoints = Arrays.copyOfRange(codePoints, resumed, codePoints.length);
+            }
+            switch (exportMode) {
+                case PIPELINED:
+                    goPipelined(zos, dirEntryName, jobCodePoints, entryTime);
+                    break;
+                case PARALLEL:
+                    if (parallelism > 1) {
+                        goParallel(zos, dirEntryName, jobCodePoints, entryTime);
+                    } else {
+                        // nothing to parallelize
+                        goSequential(zos, dirEntryName, jobCodePoints, entryTime);
+                    }
+                    break;
+                default:
+                    goSequential(zos, dirEntryName, jobCodePoints, entryTime);
+                    break;
+            }
+            if (glyphsWritten == codePoints.length || !resumable) {
+                if (incremental) {
+                    ZipEntry manifestEntry = new ZipEntry(Manifest.ENTRY_NAME);
+                    manifestEntry.setTime(entryTime);
+                    zos.putNextEntry(manifestEntry);
+                    manifest.write(zos);
+                    zos.closeEntry();
+                }
+                zos.close();
+                zos = null;
+                closePreviousPK3();
+                replacePK3(tempPK3);
+                if (resumable) {
+                    checkpointFile.delete();
+                }
+            } else {
+                // stopped resumable job, part file and it's checkpoint are kept
+                saveCheckpoint(zos);
+                zos.close();
+                zos = null;
+            }
+        } finally {
+            if (zos != null) {
+                try {
+                    zos.close();
+                } catch (IOException ex) {
+                    Logger.getLogger(FontExporter.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+            closePreviousPK3();
+            // not moved means job failed, part file of resumable job is kept for the next run
+            if (!resumable && tempPK3 != null && tempPK3.exists()) {
+                tempPK3.delete();
+            }
+            checkpoint = null;
+            partOut = null;
+            // deflaters of the job threads (threads of the parallel job are gone with it's pool)
+            pngEncoder.close();
+            monitor.finish();
+            ExportMetrics.INSTANCE.jobFinished(this);
+        }
+        Logger.getLogger(FontExporter.class.getName()).log(Level.INFO, renderer.getGlyphCache().toString());
+        Logger.getLogger(FontExporter.class.getName()).log(Level.INFO, String.format("%s: %d bytes in %d ms (glyphs %s)",
+                fontPK3.getName(), fontPK3.length(), (System.nanoTime() - jobBegin) / 1000000L,
+                storeGlyphs ? "stored" : "deflated"));
+        // difference of the entries to the pngs is what deflating them once more gives (none when they're stored)
+        Logger.getLogger(FontExporter.class.getName()).log(Level.INFO, String.format("%s: glyph pngs %d bytes, %s entries %d bytes (%+d bytes), written in %d ms",
+                fontPK3.getName(), glyphBytes, storeGlyphs ? "stored" : "deflated", glyphEntryBytes,
+                glyphEntryBytes - glyphBytes, glyphWriteNanos / 1000000L));
+        return glyphsWritten == codePoints.length;
+    }
+
+    // open the previous pk3 and find the glyph entries of the job which can be copied,
+    // those are the ones of the manifest which is made with same settings and their CRC32 still matches
+    private void openPreviousPK3(String settingsHash, String dirEntryName, int[] codePoints) {
+        reusable = new HashMap<>();
+        if (!fontPK3.exists()) {
+            return;
+        }
+        try {
+            previousPK3 = new ZipFile(fontPK3);
+            ZipEntry manifestEntry = previousPK3.getEntry(Manifest.ENTRY_NAME);
+            if (manifestEntry == null) {
+                return;
+            }
+            Manifest previous;
+            try (InputStream in = previousPK3.getInputStream(manifestEntry)) {
+                previous = Manifest.read(in);
+            }
+            if (previous == null || !previous.matches(settingsHash, dirEntryName)) {
+                return;
+            }
+            for (int codePoint : codePoints) {
+                Long crc = previous.getCrc(codePoint);
+                ZipEntry entry = previousPK3.getEntry(dirEntryName + glyphEntryName(codePoint));
+                if (crc != null && entry != null && entry.getCrc() == crc) {
+                    reusable.put(codePoint, entry);
+                }
+            }
+            Logger.getLogger(FontExporter.class.getName()).log(Level.INFO,
+                    String.format("%s: reusing %d of %d glyphs", fontPK3.getName(), reusable.size(), codePoints.length));
+        } catch (IOException ex) {
+            // unreadable previous pk3, everything gets rendered
+            Logger.getLogger(FontExporter.class.getName()).log(Level.SEVERE, null, ex);
+            reusable.clear();
+        }
+    }
+
+    // close the previous pk3 (if there's one)
+    private void closePreviousPK3() {
+        reusable = Collections.emptyMap();
+        if (previousPK3 != null) {
+            try {
+                previousPK3.close();
+            } catch (IOException ex) {
+                Logger.getLogger(FontExporter.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            previousPK3 = null;
+        }
+    }
+
+    // copy the glyph entry of the previous pk3 into the (empty) buffer, png isn't decoded
+    // (and stored entry isn't even inflated)
+    private void copyGlyphEntry(ZipEntry entry, EntryBuffer data) throws IOException {
+        try (InputStream in = previousPK3.getInputStream(entry)) {
+            data.readFrom(in);
+        }
+    }
+
+    // copy the glyphs of the stopped (or crashed) job from it's part file, up to it's last checkpoint,
+    // returns number of glyphs copied (entries are checked by their name and CRC32)
+    private int resumePart(ZipOutputStream zos, File previousPart, String dirEntryName, int[] codePoints, int limit, long entryTime) throws IOException {
+        int copied = 0;
+        EntryBuffer data = new EntryBuffer();
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(previousPart), OUTPUT_BUFFER_SIZE))) {
+            while (copied < Math.min(limit, codePoints.length)) {
+                // read errors mean the rest of the part file is damaged, it's rendered again
+                try {
+                    ZipEntry entry = zis.getNextEntry();
+                    while (entry != null && entry.isDirectory()) {
+                        entry = zis.getNextEntry();
+                    }
+                    if (entry == null || !entry.getName().equals(dirEntryName + glyphEntryName(codePoints[copied]))) {
+                        break;
+                    }
+                    data.readFrom(zis);
+                } catch (IOException ex) {
+                    Logger.getLogger(FontExporter.class.getName()).log(Level.SEVERE, null, ex);
+                    data.reset();
+                    break;
+                }
+                writeGlyphEntry(zos, dirEntryName, codePoints[copied], data, entryTime);
+                copied++;
+            }
+        }
+        Logger.getLogger(FontExporter.class.getName()).log(Level.INFO,
+                String.format("%s: resumed %d of %d glyphs", fontPK3.getName(), copied, codePoints.length));
+        return copied;
+    }
+
+    // make the written glyphs durable and record them into the checkpoint file
+    private void saveCheckpoint(ZipOutputStream zos) throws IOException {
+        zos.flush();
+        partOut.getFD().sync();
+        checkpoint.setDone(glyphsWritten);
+        checkpoint.write(checkpointFile);
+    }
+
+    // name of the glyph entry (in the dir entry)
+    private static String glyphEntryName(int codePoint) {
+        return String.format("%04X", codePoint) + ".png";
+    }
+
+    // replace the pk3 with the finished temporary archive, atomically if file system supports it
+    private void replacePK3(File tempPK3) throws IOException {
+        try {
+            Files.move(tempPK3.toPath(), fontPK3.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempPK3.toPath(), fontPK3.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // render the glyph of the code point and encode it as png into the (empty) buffer
+    private void encodeGlyph(int codePoint, EntryBuffer data) throws IOException {
+        ZipEntry previous = reusable.get(codePoint);
+        if (previous != null) {
+            copyGlyphEntry(previous, data);
+        } else {
+            encodeChImg(codePoint, renderer.giveChImg(settings, (char) codePoint), data);
+        }
+    }
+
+    // encode the char image as png into the (empty) buffer
+    private void encodeChImg(int codePoint, BufferedImage chImg, EntryBuffer data) throws IOException {
+        Object event = GlyphEvents.beginEncode();
+        long begin = System.nanoTime();
+        pngEncoder.encode(chImg, data);
+        ExportMetrics.INSTANCE.record(ExportMetrics.Stage.ENCODE, begin);
+        if (event != null) {
+            GlyphEvents.commitEncode(event, codePoint, chImg, data.size());
+        }
+    }
+
+    // write one glyph (png image) into the main dir entry of the archive,
+    // data goes from the buffer straight to the archive stream, buffer is emptied for the next glyph
+    private void writeGlyphEntry(ZipOutputStream zos, String dirEntryName, int codePoint, EntryBuffer data, long entryTime) throws IOException {
+        // paused job waits here (pool and stages fill up their buffers and wait too)
+        token.awaitResumed();
+        long begin = System.nanoTime();
+        // determine the image name
+        String imgFileName = glyphEntryName(codePoint);
+        // making entry with the image name which is inside main dir entry
+        ZipEntry entry = new ZipEntry(dirEntryName + imgFileName);
+        entry.setTime(entryTime);
+        if (storeGlyphs) {
+            // stored entry must know it's size and crc before the data
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.size());
+            entry.setCompressedSize(data.size());
+            entry.setCrc(data.crc());
+        }
+        final int size = data.size();
+        long writeBegin = System.nanoTime();
+        // putting the entry..
+        zos.putNextEntry(entry);
+        // which contains the image.. yes!
+        data.writeTo(zos);
+        zos.closeEntry();
+        glyphWriteNanos += System.nanoTime() - writeBegin;
+        glyphBytes += size;
+        glyphEntryBytes += entry.getCompressedSize();
+        // closing the entry!
+        data.reset();
+        // closed entry knows it's CRC32 (even the deflated one)
+        manifest.put(codePoint, entry.getCrc());
+        glyphsWritten++;
+        monitor.glyphWritten(entry.getCompressedSize());
+        ExportMetrics.INSTANCE.glyphWritten(entry.getCompressedSize());
+        ExportMetrics.INSTANCE.record(ExportMetrics.Stage.WRITE, begin);
+        if (checkpoint != null && glyphsWritten % CHECKPOINT_INTERVAL == 0) {
+            saveCheckpoint(zos);
+        }
+    }
+
+    // render and write glyphs one by one, on the job worker
+    private void goSequential(ZipOutputStream zos, String dirEntryName, int[] codePoints, long entryTime) throws IOException {
+        EntryBuffer data = new EntryBuffer();
+        for (int i = 0; i < codePoints.length && !token.isCancelled(); i++) {
+            encodeGlyph(codePoints[i], data);
+            writeGlyphEntry(zos, dirEntryName, codePoints[i], data, entryTime);
+        }
+    }
+
+    // render and encode glyphs in the fork join pool chunk by chunk, 
+    // job worker writes each chunk in ascending order so archive is same as sequential one
+    private void goParallel(ZipOutputStream zos, String dirEntryName, int[] codePoints, long entryTime) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // buffers are reused chunk after chunk, empty buffer means glyph wasn't made (stop)
+            EntryBuffer[] chunk = new EntryBuffer[PARALLEL_CHUNK_SIZE];
+            for (int j = 0; j < chunk.length; j++) {
+                chunk[j] = new EntryBuffer();
+            }
+            for (int offset = 0; offset < codePoints.length && !token.isCancelled(); offset += PARALLEL_CHUNK_SIZE) {
+                int length = Math.min(PARALLEL_CHUNK_SIZE, codePoints.length - offset);
+                try {
+                    pool.invoke(new GlyphTask(codePoints, chunk, offset, 0, length));
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
+                for (int j = 0; j < length && !chunk[j].isEmpty(); j++) {
+                    writeGlyphEntry(zos, dirEntryName, codePoints[offset + j], chunk[j], entryTime);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // each stage has it's own threads, stages are linked by bounded queues,
+    // job worker writes glyphs in ascending order, stage statistics are logged afterwards
+    private void goPipelined(ZipOutputStream zos, String dirEntryName, int[] codePoints, long entryTime) throws IOException, InterruptedException {
+        final RenderSettings jobSettings = settings;
+        final String signature = jobSettings.getSignature();
+        final String maskSignature = jobSettings.getMaskSignature();
+        final boolean colorizable = GlyphRenderer.isColorizable(jobSettings);
+        List<GlyphItem> items = new ArrayList<>(codePoints.length);
+        for (int codePoint : codePoints) {
+            items.add(new GlyphItem(codePoint));
+        }
+        // buffers return here after their glyph is written, there are only as many as glyphs in flight
+        final Queue<EntryBuffer> buffers = new ConcurrentLinkedQueue<>();
+        Pipeline<GlyphItem> glyphPipeline = new Pipeline<GlyphItem>(pipelineQueueSize)
+                .addStage("rasterize", parallelism, (GlyphItem item) -> {
+                    item.reused = reusable.containsKey(item.codePoint);
+                    if (item.reused) {
+                        return;
+                    }
+                    item.key = new GlyphCache.Key(signature, item.codePoint);
+                    item.chImg = renderer.getGlyphCache().get(item.key);
+                    item.cached = (item.chImg != null);
+                    if (!item.cached) {
+                        // event's duration includes the waits in the queues between the stages
+                        item.renderEvent = GlyphEvents.beginRender();
+                        long begin = System.nanoTime();
+                        if (colorizable) {
+                            // masks are cached if only the colors are changed since the last job (or preview)
+                            item.mask = renderer.getGlyphCache().getMask(new GlyphCache.Key(maskSignature, item.codePoint));
+                            item.freshMask = (item.mask == null);
+                            if (item.freshMask) {
+                                item.mask = renderer.rasterizeMask(jobSettings, (char) item.codePoint);
+                            }
+                        } else {
+                            item.chImg = renderer.rasterizeChImg(jobSettings, (char) item.codePoint);
+                        }
+                        item.rasterizeNanos = System.nanoTime() - begin;
+                    }
+                })
+                .addStage("effects", parallelism, (GlyphItem item) -> {
+                    if (!item.cached && !item.reused) {
+                        long begin = System.nanoTime();
+                        if (colorizable) {
+                            if (item.freshMask) {
+                                renderer.applyEffects(jobSettings, item.mask);
+                                renderer.getGlyphCache().putMask(new GlyphCache.Key(maskSignature, item.codePoint), item.mask);
+                            }
+                            item.chImg = renderer.colorizeChImg(jobSettings, item.mask);
+                            item.mask = null;
+                        } else {
+                            renderer.applyEffects(jobSettings, item.chImg);
+                        }
+                        item.effectsNanos = System.nanoTime() - begin;
+                    }
+                })
+                .addStage("quantize", parallelism, (GlyphItem item) -> {
+                    if (!item.cached && !item.reused) {
+                        long begin = System.nanoTime();
+                        item.chImg = renderer.quantizeChImg(jobSettings, item.chImg);
+                        renderer.getGlyphCache().put(item.key, item.chImg);
+                        if (item.renderEvent != null) {
+                            GlyphEvents.commitRender(item.renderEvent, jobSettings, item.codePoint, item.chImg,
+                                    item.rasterizeNanos, item.effectsNanos, System.nanoTime() - begin);
+                            item.renderEvent = null;
+                        }
+                    }
+                })
+                .addStage("encode", parallelism, (GlyphItem item) -> {
+                    EntryBuffer data = buffers.poll();
+                    item.data = (data != null) ? data : new EntryBuffer();
+                    if (item.reused) {
+                        copyGlyphEntry(reusable.get(item.codePoint), item.data);
+                    } else {
+                        encodeChImg(item.codePoint, item.chImg, item.data);
+                    }
+                    item.chImg = null;
+                });
+        this.pipeline = glyphPipeline;
+        glyphPipeline.run(items, (GlyphItem item) -> {
+            writeGlyphEntry(zos, dirEntryName, item.codePoint, item.data, entryTime);
+            buffers.offer(item.data);
+            item.data = null;
+        }, () -> token.isCancelled());
+        Logger.getLogger(FontExporter.class.getName()).log(Level.INFO, glyphPipeline.toString());
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS AND SETTERS
+    //--------------------------------------------------------------------------
+    public GlyphRenderer getRenderer() {
+        return renderer;
+    }
+
+    public ProgressMonitor getMonitor() {
+        return monitor;
+    }
+
+    public boolean isStopRequested() {
+        return token.isCancelled();
+    }
+
+    // stop the job, or get ready for the next one (with new token)
+    public void setStopRequested(boolean stopRequested) {
+        if (stopRequested) {
+            token.cancel();
+        } else {
+            token = new CancellationToken();
+        }
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    public ExportMode getExportMode() {
+        return exportMode;
+    }
+
+    public void setExportMode(ExportMode exportMode) {
+        this.exportMode = exportMode;
+    }
+
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        this.pipelineQueueSize = Math.max(pipelineQueueSize, 1);
+    }
+
+    // stage statistics (queue depth, stall times) of the current or last pipelined job
+    public List<Pipeline.StageStats> getPipelineStats() {
+        Pipeline<GlyphItem> glyphPipeline = pipeline;
+        return (glyphPipeline != null) ? glyphPipeline.getStats() : Collections.<Pipeline.StageStats>emptyList();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    public int getCompressionLevel() {
+        return pngEncoder.getCompressionLevel();
+    }
+
+    // deflate level of the glyph pngs (0 - 9), not during the export (jobs export with their own copy)
+    public void setCompressionLevel(int compressionLevel) {
+        PngEncoder dropped = pngEncoder;
+        this.pngEncoder = new PngEncoder(Math.min(Math.max(compressionLevel, 0), 9));
+        dropped.close();
+    }
+
+    public boolean isStoreGlyphs() {
+        return storeGlyphs;
+    }
+
+    public void setStoreGlyphs(boolean storeGlyphs) {
+        this.storeGlyphs = storeGlyphs;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isResumable() {
+        return resumable;
+    }
+
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+}
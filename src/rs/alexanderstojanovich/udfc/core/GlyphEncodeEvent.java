@@ -0,0 +1,80 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.awt.image.BufferedImage;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+@Name("rs.alexanderstojanovich.udfc.GlyphEncode")
+@Label("Glyph Encode")
+@Category("Unicode Doom Font Creator")
+@Description("Char image of one glyph is encoded as png during the export")
+@StackTrace(false)
+@Threshold("1 ms")
+public class GlyphEncodeEvent extends Event { // JFR event of the slow glyph encoding, loaded only through GlyphEvents
+
+    @Label("Code Point")
+    private int codePoint;
+
+    @Label("Width")
+    private int width;
+
+    @Label("Height")
+    private int height;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    //--------------------------------------------------------------------------
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    // event which began now, null if it's not recorded
+    static Object start() {
+        GlyphEncodeEvent event = new GlyphEncodeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    // end the event and commit it if it's slower than the threshold
+    static void finish(Object started, int codePoint, BufferedImage chImg, long bytes) {
+        GlyphEncodeEvent event = (GlyphEncodeEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.codePoint = codePoint;
+            event.width = chImg.getWidth();
+            event.height = chImg.getHeight();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.awt.image.BufferedImage;
+import rs.alexanderstojanovich.udfc.util.Palette;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public final class GlyphEvents { // JFR events of the glyphs, event classes are touched only if the runtime has JFR
+
+    // Flight Recorder is there (Java 8u262 and newer, Java 11 and newer)
+    public static final boolean AVAILABLE = available();
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS (NONE, STATIC METHODS ONLY)
+    //--------------------------------------------------------------------------
+    private GlyphEvents() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    private static boolean available() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    // effects of the settings, like "aa gradient outline=2 shadow palette=Doom"
+    static String effectsOf(RenderSettings settings) {
+        StringBuilder sb = new StringBuilder();
+        if (settings.isUseAntialias()) {
+            sb.append("aa ");
+        }
+        if (settings.isUseGradient()) {
+            sb.append("gradient ");
+        }
+        if (settings.getOutlineWidth() > 0) {
+            sb.append("outline=").append(settings.getOutlineWidth()).append(' ');
+        }
+        if (settings.isUseShadow()) {
+            sb.append("shadow ");
+        }
+        if (settings.isUseDistanceField()) {
+            sb.append("sdf ");
+            if (settings.getGlowRadius() > 0) {
+                sb.append("glow=").append(settings.getGlowRadius()).append(' ');
+            }
+        }
+        if (settings.getPalette() != null) {
+            sb.append("palette=").append(Palette.nameOf(settings.getPalette())).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    // render event which began now, null if JFR isn't there or the event isn't recorded
+    public static Object beginRender() {
+        return AVAILABLE ? GlyphRenderEvent.start() : null;
+    }
+
+    // end the render event (not null), per stage durations are in nanoseconds
+    public static void commitRender(Object event, RenderSettings settings, int codePoint, BufferedImage chImg,
+            long rasterizeNanos, long effectsNanos, long quantizeNanos) {
+        GlyphRenderEvent.finish(event, settings, codePoint, chImg, rasterizeNanos, effectsNanos, quantizeNanos);
+    }
+
+    // encode event which began now, null if JFR isn't there or the event isn't recorded
+    public static Object beginEncode() {
+        return AVAILABLE ? GlyphEncodeEvent.start() : null;
+    }
+
+    // end the encode event (not null)
+    public static void commitEncode(Object event, int codePoint, BufferedImage chImg, long bytes) {
+        GlyphEncodeEvent.finish(event, codePoint, chImg, bytes);
+    }
+
+}
@@ -0,0 +1,518 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.PaintContext;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.util.Arrays;
+import rs.alexanderstojanovich.udfc.util.BitMask;
+import rs.alexanderstojanovich.udfc.util.DistanceField;
+import rs.alexanderstojanovich.udfc.util.Effects;
+import rs.alexanderstojanovich.udfc.util.GlyphCache;
+import rs.alexanderstojanovich.udfc.util.GlyphMask;
+import rs.alexanderstojanovich.udfc.util.IndexedColors;
+import rs.alexanderstojanovich.udfc.util.Palette;
+import rs.alexanderstojanovich.udfc.util.Quantizer;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class GlyphRenderer { // renders char images with the given settings, no Swing in here
+
+    // renderer keeps no settings, everything comes with the (immutable) settings of the call,
+    // so any number of threads can render at once, and settings changed meanwhile affect only the next calls
+    // rendered char images and their masks shared by preview and the job (of any settings, signature is part of the key)
+    private final GlyphCache glyphCache;
+    // palette indices of the last settings (the job) with the palette, made again when the settings change
+    private volatile IndexedColors indexedColors = null;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public GlyphRenderer() {
+        this(new GlyphCache());
+    }
+
+    public GlyphRenderer(GlyphCache glyphCache) {
+        this.glyphCache = glyphCache;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // give char image rendering certain char (or from the cache if it's already rendered)!
+    // cached image is shared between preview and the job, so don't alter it!
+    public BufferedImage giveChImg(RenderSettings settings, char ch) {
+        GlyphCache.Key key = new GlyphCache.Key(settings.getSignature(), ch);
+        BufferedImage chImg = glyphCache.get(key);
+        if (chImg == null) {
+            chImg = renderChImg(settings, ch);
+            glyphCache.put(key, chImg);
+        }
+        return chImg;
+    }
+
+    // render char image of certain char, all the stages one after another
+    public BufferedImage renderChImg(RenderSettings settings, char ch) {
+        // slow glyphs show up in the flight recording (if it's running)
+        Object event = GlyphEvents.beginRender();
+        long begin = System.nanoTime();
+        long rasterized;
+        BufferedImage chImg;
+        if (isColorizable(settings)) {
+            // masks come from the cache if only the colors (or the palette) are changed, they're just colorized again
+            GlyphCache.Key maskKey = new GlyphCache.Key(settings.getMaskSignature(), ch);
+            GlyphMask mask = glyphCache.getMask(maskKey);
+            boolean fresh = (mask == null);
+            if (fresh) {
+                mask = rasterizeMask(settings, ch);
+            }
+            rasterized = System.nanoTime();
+            if (fresh) {
+                applyEffects(settings, mask);
+                glyphCache.putMask(maskKey, mask);
+            }
+            chImg = colorizeChImg(settings, mask);
+        } else {
+            chImg = rasterizeChImg(settings, ch);
+            rasterized = System.nanoTime();
+            applyEffects(settings, chImg);
+        }
+        long effected = System.nanoTime();
+        BufferedImage result = quantizeChImg(settings, chImg);
+        if (event != null) {
+            GlyphEvents.commitRender(event, settings, ch, result, rasterized - begin, effected - rasterized, System.nanoTime() - effected);
+        }
+        return result;
+    }
+
+    // masks hold no colors, so they're made for opaque colors only (translucent char and outline alter the effects),
+    // char image of translucent colors is drawn and post processed directly
+    public static boolean isColorizable(RenderSettings settings) {
+        return settings.getFgColor().getAlpha() == 0xFF
+                && (!settings.isUseGradient() || settings.getBgColor().getAlpha() == 0xFF)
+                && (settings.getOutlineWidth() == 0 || settings.getOutlineColor().getAlpha() == 0xFF);
+    }
+
+    // define sampler, room around the char for the outline and the shadow
+    private static double samplerOf(RenderSettings settings) {
+        if (settings.isUseDistanceField()) {
+            // distance field effects take only the room which they reach
+            return settings.getMultiplier() + 2.0 * settings.getFieldPadding();
+        }
+        double sampler = settings.getMultiplier();
+        if (settings.getOutlineWidth() > 0) {
+            sampler *= 2.0 * settings.getOutlineWidth();
+        }
+        if (settings.isUseShadow()) {
+            sampler *= 2.0;
+            // the char is in the middle, so each side takes the whole reach of the distant or wide shadow,
+            // default one (distance and radius one) keeps the room it always had (it's clamped to the image)
+            if (settings.getShadowDistance() != 1 || settings.getShadowRadius() != 1) {
+                sampler = Math.max(sampler, 2.0 * (settings.getShadowDistance() + settings.getShadowRadius()));
+            }
+        }
+        return sampler;
+    }
+
+    // two-color gradient of the char, from the top to the bottom of it's bounds (and the sampler)
+    private static GradientPaint gradientOf(RenderSettings settings, char ch, FontRenderContext frc, double sampler) {
+        TextLayout chLayout = new TextLayout(String.valueOf(ch), settings.getFont(), frc);
+        Rectangle2D gb = chLayout.getBounds();
+        return new GradientPaint(
+                0.0f, (float) gb.getMinY() - (float) (0.5f * sampler),
+                settings.getFgColor(),
+                0.0f, (float) gb.getMaxY() + (float) (0.5f * sampler),
+                settings.getBgColor(), false);
+    }
+
+    // draw the char into new image of the type (ARGB or gray) in the given paint, or in the colors of the settings
+    // (paint is null), gradient points and translation go into the array (if it's given)
+    private static BufferedImage drawChImg(RenderSettings settings, char ch, int imageType, Paint paint, double[] gradient) {
+        double sampler = samplerOf(settings);
+        // create the FontRenderContext object which helps us to measure the text
+        // subsequently craeting the rectangle for measuring the width and height
+        // and the glyph vector containing the character, of course!
+        FontRenderContext frc = new FontRenderContext(null, settings.isUseAntialias(), true);
+        Rectangle2D rect = settings.getFont().getStringBounds(String.valueOf(ch), frc);
+        rect.setRect(rect.getX(), rect.getY(), rect.getWidth() + sampler, rect.getHeight() + sampler);
+        GlyphVector gv = settings.getFont().createGlyphVector(frc, String.valueOf(ch));
+
+        // calculating with and height and adding +1 to be correctly displayed
+        int w = (int) Math.round(rect.getWidth()) + 1;
+        int h = (int) Math.round(rect.getHeight()) + 1;
+
+        BufferedImage chImg = new BufferedImage(w, h, imageType);
+
+        // create rendering char image graphics, where rendering take place
+        Graphics2D chRender = chImg.createGraphics();
+        // do the first necessary translation for each
+        chRender.translate(0, -rect.getY());
+
+        // don't forget to set font!
+        chRender.setFont(settings.getFont());
+
+        if (settings.isUseAntialias()) {
+            chRender.setRenderingHint(
+                    RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            chRender.setRenderingHint(
+                    RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+        } else {
+            chRender.setRenderingHint(
+                    RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT);
+
+            chRender.setRenderingHint(
+                    RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_DEFAULT);
+        }
+
+        if (gradient != null) {
+            // where the gradient goes and how the char is moved (for colorizing the masks)
+            if (settings.isUseGradient()) {
+                GradientPaint gp = gradientOf(settings, ch, frc, sampler);
+                gradient[0] = gp.getPoint1().getY();
+                gradient[1] = gp.getPoint2().getY();
+            }
+            gradient[2] = -rect.getY();
+        }
+        if (paint != null) {
+            chRender.setPaint(paint);
+        } else if (settings.isUseGradient()) {
+            chRender.setPaint(gradientOf(settings, ch, frc, sampler));
+        } else {
+            chRender.setColor(settings.getFgColor());
+        }
+        chRender.drawGlyphVector(gv, (float) (0.5f * sampler), (float) (0.5f * sampler));
+        chRender.dispose();
+        return chImg;
+    }
+
+    // first stage, draw the char into ARGB image
+    public BufferedImage rasterizeChImg(RenderSettings settings, char ch) {
+        long begin = System.nanoTime();
+        BufferedImage chImg = drawChImg(settings, ch, BufferedImage.TYPE_INT_ARGB, null, null);
+        ExportMetrics.INSTANCE.record(ExportMetrics.Stage.RASTERIZE, begin);
+        return chImg;
+    }
+
+    // Java2D draws the chars from 100 pixels on as outlines (shapes)
+    private static boolean isDrawnAsOutline(RenderSettings settings) {
+        return (int) (settings.getFont().getSize2D() + 0.5f) > 100;
+    }
+
+    // first stage (of the masks), coverage of the char is alpha of the char drawn in white, Java2D gives the same alpha
+    // in any color or gradient, except for non-antialiased outlines (gradient ones are filled differently)
+    public GlyphMask rasterizeMask(RenderSettings settings, char ch) {
+        if (settings.isUseDistanceField()) {
+            // coverage and it's distance field are made once for all the effect settings of the same room
+            GlyphCache.Key fieldKey = new GlyphCache.Key(settings.getFieldSignature(), ch);
+            GlyphMask field = glyphCache.getMask(fieldKey);
+            if (field == null) {
+                field = drawMask(settings, ch);
+                long begin = System.nanoTime();
+                field.setDistances(DistanceField.squaredDistances(Effects.alpha(field.getCoverage(), settings.isUseAntialias()),
+                        field.getWidth(), field.getHeight()));
+                ExportMetrics.INSTANCE.record(ExportMetrics.Stage.DISTANCE_FIELD, begin);
+                glyphCache.putMask(fieldKey, field);
+            }
+            return new GlyphMask(field);
+        }
+        if (isBinary(settings)) {
+            return drawBits(settings, ch);
+        }
+        return drawMask(settings, ch);
+    }
+
+    // hard-edged chars of one color are 1-bit masks, their outline is dilation of the bits and that's
+    // the same outline for the widths of which one pixel of the char is enough (see Effects.outlineMask)
+    private static boolean isBinary(RenderSettings settings) {
+        int len = 2 * settings.getOutlineWidth() + 1;
+        return !settings.isUseAntialias() && !settings.isUseGradient() && !settings.isUseDistanceField() && len * len <= 0xFF;
+    }
+
+    // 1-bit coverage of the char drawn in white, into gray image (same pixels as in ARGB one)
+    // and not into binary one, Java2D draws the text into binary images many times slower
+    private static GlyphMask drawBits(RenderSettings settings, char ch) {
+        long begin = System.nanoTime();
+        BufferedImage grayImg = drawChImg(settings, ch, BufferedImage.TYPE_BYTE_GRAY, Color.WHITE, null);
+        byte[] pixels = ((DataBufferByte) grayImg.getRaster().getDataBuffer()).getData();
+        GlyphMask mask = new GlyphMask(BitMask.of(pixels, grayImg.getWidth(), grayImg.getHeight()));
+        ExportMetrics.INSTANCE.record(ExportMetrics.Stage.RASTERIZE, begin);
+        return mask;
+    }
+
+    // coverage of the char drawn in white
+    private static GlyphMask drawMask(RenderSettings settings, char ch) {
+        long begin = System.nanoTime();
+        double[] gradient = new double[3];
+        Paint white = (settings.isUseGradient() && !settings.isUseAntialias() && isDrawnAsOutline(settings))
+                ? new GradientPaint(0.0f, 0.0f, Color.WHITE, 0.0f, 1.0f, Color.WHITE) : Color.WHITE;
+        BufferedImage chImg = drawChImg(settings, ch, BufferedImage.TYPE_INT_ARGB, white, gradient);
+        int w = chImg.getWidth();
+        int h = chImg.getHeight();
+        byte[] coverage = Effects.alpha(((DataBufferInt) chImg.getRaster().getDataBuffer()).getData(), w, h);
+        ExportMetrics.INSTANCE.record(ExportMetrics.Stage.RASTERIZE, begin);
+        return new GlyphMask(w, h, coverage, (float) gradient[0], (float) gradient[1], gradient[2]);
+    }
+
+    // second stage, post processing of ARGB image (alters it)
+    public void applyEffects(RenderSettings settings, BufferedImage chImg) {
+        int w = chImg.getWidth();
+        int h = chImg.getHeight();
+        // post processing works on the pixels directly (row by row, no objects per pixel)
+        int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+        //if antialiasing is selected multiply color with it's alpha
+        if (settings.isUseAntialias()) {
+            Effects.premultiply(pixels, w, h);
+        }
+        if (settings.isUseDistanceField()) {
+            // the same masks as for the colorized chars, painted under the char
+            GlyphMask mask = new GlyphMask(w, h, Effects.alpha(pixels, w, h), 0.0f, 0.0f, 0.0);
+            applyEffects(settings, mask);
+            Effects.paintEffects(mask, settings.getOutlineColor().getRGB(), settings.getGlowColor().getRGB(),
+                    settings.getShadowColor().getRGB(), pixels);
+            return;
+        }
+        // if outline is selected; (summed area table of the alpha, whole image at once)
+        if (settings.getOutlineWidth() > 0) {
+            long begin = System.nanoTime();
+            Effects.outline(pixels, w, h, settings.getOutlineWidth(), settings.getOutlineColor().getRGB());
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.OUTLINE, begin);
+        }
+        // if user selected shadow; this is for shadow effect (blurred alpha moved by distance)
+        if (settings.isUseShadow()) {
+            long begin = System.nanoTime();
+            Effects.shadow(pixels, w, h, settings.getShadowAngle(), settings.getShadowDistance(), settings.getShadowRadius(), settings.getShadowColor().getRGB());
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.SHADOW, begin);
+        }
+    }
+
+    // second stage (of the masks), outline and shadow masks from the coverage (alters the mask, before it's shared),
+    // alpha is the one which the char image would have after each effect
+    public void applyEffects(RenderSettings settings, GlyphMask mask) {
+        if (mask.isBinary()) {
+            applyBitEffects(settings, mask);
+            return;
+        }
+        int w = mask.getWidth();
+        int h = mask.getHeight();
+        byte[] alpha = Effects.alpha(mask.getCoverage(), settings.isUseAntialias());
+        if (settings.isUseDistanceField()) {
+            applyFieldEffects(settings, mask, alpha);
+            return;
+        }
+        if (settings.getOutlineWidth() > 0) {
+            long begin = System.nanoTime();
+            byte[] outline = Effects.outlineMask(alpha, w, h, settings.getOutlineWidth());
+            Effects.cover(alpha, outline);
+            mask.setOutline(outline);
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.OUTLINE, begin);
+        }
+        if (settings.isUseShadow()) {
+            long begin = System.nanoTime();
+            mask.setShadow(Effects.shadowMask(alpha, w, h, settings.getShadowAngle(), settings.getShadowDistance(), settings.getShadowRadius()));
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.SHADOW, begin);
+        }
+    }
+
+    // effects of the 1-bit mask, word by word (64 pixels at once), soft shadow is blurred from the bytes
+    private static void applyBitEffects(RenderSettings settings, GlyphMask mask) {
+        BitMask alpha = mask.getCoverageBits();
+        if (settings.getOutlineWidth() > 0) {
+            long begin = System.nanoTime();
+            BitMask outline = alpha.dilate(settings.getOutlineWidth()).andNot(alpha);
+            alpha = alpha.or(outline);
+            mask.setOutlineBits(outline);
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.OUTLINE, begin);
+        }
+        if (settings.isUseShadow()) {
+            long begin = System.nanoTime();
+            if (settings.getShadowRadius() == 0) {
+                final int dx = Effects.shadowOffset(settings.getShadowDistance(), Math.cos(Math.toRadians(settings.getShadowAngle())));
+                final int dy = Effects.shadowOffset(settings.getShadowDistance(), Math.sin(Math.toRadians(settings.getShadowAngle())));
+                mask.setShadowBits(alpha.shift(dx, dy).andNot(alpha));
+            } else {
+                mask.setShadow(Effects.shadowMask(alpha.toAlpha(), mask.getWidth(), mask.getHeight(),
+                        settings.getShadowAngle(), settings.getShadowDistance(), settings.getShadowRadius()));
+            }
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.SHADOW, begin);
+        }
+    }
+
+    // effects by thresholding the distance field, cost doesn't depend on their width or radius
+    private static void applyFieldEffects(RenderSettings settings, GlyphMask mask, byte[] alpha) {
+        int w = mask.getWidth();
+        int h = mask.getHeight();
+        int[] distances = mask.getDistances();
+        if (distances == null && (settings.getOutlineWidth() > 0 || settings.getGlowRadius() > 0 || settings.isUseShadow())) {
+            long begin = System.nanoTime();
+            distances = DistanceField.squaredDistances(alpha, w, h);
+            mask.setDistances(distances);
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.DISTANCE_FIELD, begin);
+        }
+        if (settings.getOutlineWidth() > 0) {
+            long begin = System.nanoTime();
+            byte[] outline = DistanceField.outlineMask(alpha, distances, settings.getOutlineWidth());
+            Effects.cover(alpha, outline);
+            mask.setOutline(outline);
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.OUTLINE, begin);
+        }
+        if (settings.getGlowRadius() > 0) {
+            long begin = System.nanoTime();
+            mask.setGlow(DistanceField.glowMask(alpha, distances, settings.getOutlineWidth(), settings.getGlowRadius()));
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.GLOW, begin);
+        }
+        if (settings.isUseShadow()) {
+            long begin = System.nanoTime();
+            mask.setShadow(DistanceField.shadowMask(alpha, distances, w, h, settings.getOutlineWidth(),
+                    settings.getShadowAngle(), settings.getShadowDistance(), settings.getShadowRadius()));
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.SHADOW, begin);
+        }
+    }
+
+    // colors of the char per row (lookup table of the gradient), same colors as the gradient paint gives to the pixels
+    private static int[] rowColorsOf(RenderSettings settings, GlyphMask mask) {
+        int h = mask.getHeight();
+        int[] rowColors = new int[h];
+        if (settings.isUseGradient()) {
+            GradientPaint gp = new GradientPaint(
+                    0.0f, mask.getGradientY1(), settings.getFgColor(),
+                    0.0f, mask.getGradientY2(), settings.getBgColor(), false);
+            Rectangle bounds = new Rectangle(0, 0, 1, h);
+            PaintContext context = gp.createContext(ColorModel.getRGBdefault(), bounds, bounds,
+                    AffineTransform.getTranslateInstance(0.0, mask.getTranslateY()), new RenderingHints(null));
+            ColorModel cm = context.getColorModel();
+            Object pixel = null;
+            // Java2D gets the gradient in tiles of 32 rows from the top of the char (or row by row for
+            // non-antialiased outlines) and colors of the rows depend on where the tile begins (rounding),
+            // so they're taken the same way
+            boolean rowByRow = !settings.isUseAntialias() && isDrawnAsOutline(settings);
+            int tileSize = rowByRow ? 1 : 32;
+            int top = 0;
+            byte[] coverage = mask.getCoverage();
+            while (top < h - 1 && isEmptyRow(coverage, mask.getWidth(), top)) {
+                top++;
+            }
+            for (int tileY = top; tileY < h; tileY += tileSize) {
+                int tileH = Math.min(tileSize, h - tileY);
+                Raster raster = context.getRaster(0, tileY, 1, tileH);
+                for (int py = 0; py < tileH; py++) {
+                    pixel = raster.getDataElements(0, py, pixel);
+                    rowColors[tileY + py] = cm.getRGB(pixel);
+                }
+            }
+            context.dispose();
+        } else {
+            Arrays.fill(rowColors, settings.getFgColor().getRGB());
+        }
+        return rowColors;
+    }
+
+    private static boolean isEmptyRow(byte[] coverage, int w, int py) {
+        for (int i = py * w; i < (py + 1) * w; i++) {
+            if (coverage[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // palette indices of the colors of the settings (which have the palette), resolved once for the same settings
+    private IndexedColors indexedColorsOf(RenderSettings settings) {
+        IndexedColors colors = indexedColors;
+        if (colors == null || !colors.getSignature().equals(settings.getSignature())) {
+            colors = new IndexedColors(settings.getSignature(), settings.getPalette().getQuantizer(),
+                    settings.isUseGradient() ? null : settings.getFgColor().getRGB(), settings.isUseAntialias(),
+                    settings.getOutlineColor().getRGB(), settings.getGlowColor().getRGB(), settings.getShadowColor().getRGB());
+            indexedColors = colors;
+        }
+        return colors;
+    }
+
+    // colorize stage (of the masks), char image in the colors of the settings, same one as drawn and post processed,
+    // with the palette it's the indexed image right away (same as quantized one)
+    public BufferedImage colorizeChImg(RenderSettings settings, GlyphMask mask) {
+        long begin = System.nanoTime();
+        BufferedImage chImg;
+        if (settings.getPalette() != null) {
+            IndexedColors colors = indexedColorsOf(settings);
+            chImg = new BufferedImage(mask.getWidth(), mask.getHeight(), BufferedImage.TYPE_BYTE_INDEXED,
+                    colors.getQuantizer().getColorModel());
+            byte[] indices = ((DataBufferByte) chImg.getRaster().getDataBuffer()).getData();
+            if (mask.isBinary()) {
+                Effects.colorizeBitsIndexed(mask, colors, indices);
+            } else {
+                Effects.colorizeIndexed(mask, rowColorsOf(settings, mask), settings.isUseAntialias(), colors, indices);
+            }
+        } else {
+            chImg = new BufferedImage(mask.getWidth(), mask.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            if (mask.isBinary()) {
+                Effects.colorizeBits(mask, settings.getFgColor().getRGB(), settings.getOutlineColor().getRGB(),
+                        settings.getShadowColor().getRGB(), pixels);
+            } else {
+                Effects.colorize(mask, rowColorsOf(settings, mask), settings.isUseAntialias(),
+                        settings.getOutlineColor().getRGB(), settings.getGlowColor().getRGB(), settings.getShadowColor().getRGB(), pixels);
+            }
+        }
+        ExportMetrics.INSTANCE.record(ExportMetrics.Stage.COLORIZE, begin);
+        return chImg;
+    }
+
+    // third stage, if user chose palette in the image, make conversion.. (nearest colors, searched among the candidates of the lookup table)
+    public BufferedImage quantizeChImg(RenderSettings settings, BufferedImage chImg) {
+        Palette palette = settings.getPalette();
+        // colorized masks are indexed already
+        if (palette != null && chImg.getType() != BufferedImage.TYPE_BYTE_INDEXED) {
+            Quantizer quantizer = palette.getQuantizer();
+            int[] pixels = ((DataBufferInt) chImg.getRaster().getDataBuffer()).getData();
+            long begin = System.nanoTime();
+            BufferedImage indexedImg = quantizer.quantize(pixels, chImg.getWidth(), chImg.getHeight());
+            ExportMetrics.INSTANCE.record(ExportMetrics.Stage.QUANTIZE, begin);
+            return indexedImg;
+        }
+        return chImg;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public GlyphCache getGlyphCache() {
+        return glyphCache;
+    }
+
+}
@@ -0,0 +1,238 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class JobScheduler { // queue of the jobs run by the worker pool, higher priority first, same priority in submit order
+
+    // usual priorities (any int will do)
+    public static final int PRIORITY_LOW = -10;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 10;
+
+    // idle worker exits after this time (new one comes with the next job)
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    // what the job does, returns true if it's done completely or false if it's stopped by the token
+    public interface Task {
+
+        public boolean run(CancellationToken token) throws Exception;
+    }
+
+    // gets to know about the start and the end of each job (called by the worker)
+    public interface JobListener {
+
+        public void started(JobHandle job);
+
+        // job is done, stopped, failed or cancelled before it started
+        public void finished(JobHandle job);
+    }
+
+    // handle of the submitted job, result (get) is true if the job is done, false if it's stopped,
+    // cancel stops the running job through it's token and removes the queued one
+    public class JobHandle extends FutureTask<Boolean> implements Comparable<JobHandle> {
+
+        private final String name;
+        private final int priority;
+        private final long sequence;
+        private final CancellationToken token;
+        private volatile boolean started = false;
+
+        private JobHandle(String name, int priority, long sequence, Task task, CancellationToken token) {
+            super(() -> task.run(token));
+            this.name = name;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.token = token;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            super.run();
+        }
+
+        // running job stops at the next glyph (and keeps it's part file), queued one never starts
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            token.cancel();
+            if (!started) {
+                return super.cancel(false);
+            }
+            return !isDone();
+        }
+
+        @Override
+        protected void done() {
+            jobs.remove(this);
+            if (listener != null) {
+                listener.finished(this);
+            }
+        }
+
+        @Override
+        public int compareTo(JobHandle other) {
+            if (priority != other.priority) {
+                return (priority > other.priority) ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public CancellationToken getToken() {
+            return token;
+        }
+
+        public boolean isStarted() {
+            return started;
+        }
+    }
+
+    // workers and their queue of jobs
+    private final ThreadPoolExecutor executor;
+    // submit order of the jobs with the same priority
+    private final AtomicLong sequence = new AtomicLong();
+    // jobs submitted and not finished yet
+    private final Set<JobHandle> jobs = ConcurrentHashMap.newKeySet();
+    // start and end of the jobs go here (could be null)
+    private volatile JobListener listener;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    // scheduler running at most poolSize jobs at once
+    public JobScheduler(int poolSize) {
+        final AtomicInteger workers = new AtomicInteger();
+        ThreadFactory factory = (Runnable r) -> new Thread(r, "Job Worker " + workers.incrementAndGet());
+        int size = Math.max(poolSize, 1);
+        this.executor = new ThreadPoolExecutor(size, size, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), factory) {
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                JobHandle job = (JobHandle) r;
+                if (!job.isCancelled() && listener != null) {
+                    listener.started(job);
+                }
+            }
+        };
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // put the job into the queue, it's run when a worker is free and no job with higher priority waits
+    public JobHandle submit(String name, int priority, Task task) {
+        JobHandle job = new JobHandle(name, priority, sequence.getAndIncrement(), task, new CancellationToken());
+        jobs.add(job);
+        executor.execute(job);
+        return job;
+    }
+
+    // cancel all the jobs, running ones stop promptly and queued ones are removed
+    public void cancelAll() {
+        for (JobHandle job : getJobs()) {
+            job.cancel(false);
+        }
+        executor.purge();
+    }
+
+    // no new jobs, queued and running ones are finished
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // jobs not finished yet (running and queued), in the order they run
+    public List<JobHandle> getJobs() {
+        List<JobHandle> list = new ArrayList<>(jobs);
+        Collections.sort(list);
+        // running ones are ahead of the queue
+        List<JobHandle> result = new ArrayList<>(list.size());
+        for (JobHandle job : list) {
+            if (job.isStarted()) {
+                result.add(job);
+            }
+        }
+        for (JobHandle job : list) {
+            if (!job.isStarted()) {
+                result.add(job);
+            }
+        }
+        return result;
+    }
+
+    // is there any job running or queued
+    public boolean isBusy() {
+        return !jobs.isEmpty();
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS AND SETTERS
+    //--------------------------------------------------------------------------
+    public JobListener getListener() {
+        return listener;
+    }
+
+    public void setListener(JobListener listener) {
+        this.listener = listener;
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    // number of jobs run at once
+    public void setPoolSize(int poolSize) {
+        int size = Math.max(poolSize, 1);
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+
+}
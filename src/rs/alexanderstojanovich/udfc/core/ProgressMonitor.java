@@ -0,0 +1,170 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class ProgressMonitor { // progress of the export job, counted lock-free by the job and published at the refresh rate
+
+    // how often the progress is published (GUI timer and command line reporter)
+    public static final int REFRESH_MILLIS = 100;
+
+    // progress at one moment, never changes
+    public static class Progress {
+
+        private final long done;
+        private final long total;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        private Progress(long done, long total, long bytes, long elapsedNanos) {
+            this.done = done;
+            this.total = total;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // done out of total in percents
+        public int getPercent() {
+            return (total == 0L) ? 100 : (int) (100L * done / total);
+        }
+
+        // glyphs per second
+        public double getThroughput() {
+            return (elapsedNanos == 0L) ? 0.0 : done * 1E9 / elapsedNanos;
+        }
+
+        // bytes of the archive per second
+        public double getByteRate() {
+            return (elapsedNanos == 0L) ? 0.0 : bytes * 1E9 / elapsedNanos;
+        }
+
+        // estimated time left (in milliseconds), -1 if it's not known yet
+        public long getEtaMillis() {
+            if (done == 0L) {
+                return -1L;
+            }
+            return (total - done) * (elapsedNanos / 1000000L) / done;
+        }
+
+        @Override
+        public String toString() {
+            long eta = getEtaMillis();
+            return String.format(Locale.ROOT, "%d%% (%d/%d), %.1f glyphs/s, %.1f KiB/s, ETA %s",
+                    getPercent(), done, total, getThroughput(), getByteRate() / 1024.0,
+                    (eta < 0L) ? "?" : String.format(Locale.ROOT, "%.1f s", eta / 1000.0));
+        }
+
+        public long getDone() {
+            return done;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    // gets the published progress, called by the reporter (on the EDT in the GUI)
+    public interface ProgressListener {
+
+        public void progress(Progress progress);
+    }
+
+    // glyphs written and bytes of their entries, added by the writing thread
+    private final LongAdder done = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    // glyphs of the job
+    private volatile long total = 0L;
+    // when the job began and when it ended (zero while it runs)
+    private volatile long begin = 0L;
+    private volatile long end = 0L;
+    // subscribers of the published progress
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // job begins, counters start from zero
+    public void start(long total) {
+        done.reset();
+        bytes.reset();
+        this.total = total;
+        this.end = 0L;
+        this.begin = System.nanoTime();
+    }
+
+    // one glyph entry is written into the archive, no locks and no listeners here (hot loop)
+    public void glyphWritten(long entryBytes) {
+        done.increment();
+        bytes.add(entryBytes);
+    }
+
+    // job ended (done, stopped or failed)
+    public void finish() {
+        end = System.nanoTime();
+    }
+
+    // progress at this moment
+    public Progress snapshot() {
+        long elapsed = (begin == 0L) ? 0L : ((end == 0L) ? System.nanoTime() : end) - begin;
+        return new Progress(done.sum(), total, bytes.sum(), elapsed);
+    }
+
+    // give the current progress to all the listeners, called by the reporter at the refresh rate
+    public Progress publish() {
+        Progress progress = snapshot();
+        for (ProgressListener listener : listeners) {
+            listener.progress(progress);
+        }
+        return progress;
+    }
+
+    public void addListener(ProgressListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public long getTotal() {
+        return total;
+    }
+
+    public boolean isRunning() {
+        return begin != 0L && end == 0L;
+    }
+
+}
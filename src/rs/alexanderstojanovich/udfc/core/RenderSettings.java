@@ -0,0 +1,420 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.core;
+
+import java.awt.Color;
+import java.awt.Font;
+import rs.alexanderstojanovich.udfc.util.Palette;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public final class RenderSettings { // snapshot of everything which affects the char image, never changes
+
+    // font from the OS from which we derive the GZDoom font
+    private final Font font;
+    // multiplier of cell size
+    private final double multiplier;
+
+    // primary color (foreground)
+    private final Color fgColor;
+    // secondary color (background)
+    private final Color bgColor;
+    // outline color
+    private final Color outlineColor;
+    // shadow color
+    private final Color shadowColor;
+    // glow color
+    private final Color glowColor;
+
+    // outline thickness (zero is no outline)
+    private final int outlineWidth;
+
+    // palette of the indexed glyphs (null means ARGB glyphs)
+    private final Palette palette;
+
+    // use two-color gradient for the font (or use single foreground color)
+    private final boolean useGradient;
+    // use antialias for the font
+    private final boolean useAntialias;
+
+    // use drop shadow
+    private final boolean useShadow;
+    // shadow angle (degrees) which is clockwise
+    private final int shadowAngle;
+    // shadow distance (in pixels) from the char
+    private final int shadowDistance;
+    // shadow blur radius (in pixels), zero is for hard shadow
+    private final int shadowRadius;
+
+    // use distance field for the effects (outline, shadow and glow of any width)
+    private final boolean useDistanceField;
+    // glow radius (in pixels) around the char, zero is no glow (works only with the distance field)
+    private final int glowRadius;
+    // room (in pixels) which the distance field effects take on each side of the char
+    private final int fieldPadding;
+
+    // signature of the settings (key of the glyph cache), made once
+    private final String signature;
+    // signature of the settings which affect the glyph mask (all but colors and palette)
+    private final String maskSignature;
+    // signature of the settings which affect the distance field (shape of the char and the room around it)
+    private final String fieldSignature;
+
+    // settings of the fresh GUI
+    public static final RenderSettings DEFAULT = new Builder().build();
+
+    // makes the settings, one setter at the time
+    public static class Builder {
+
+        private Font font = new Font("Courier New", Font.PLAIN, 12);
+        private double multiplier = 1.0;
+        private Color fgColor = Color.YELLOW;
+        private Color bgColor = Color.CYAN;
+        private Color outlineColor = Color.BLUE;
+        private Color shadowColor = Color.GRAY;
+        private Color glowColor = Color.WHITE;
+        private int outlineWidth = 0;
+        private Palette palette = null;
+        private boolean useGradient = false;
+        private boolean useAntialias = false;
+        private boolean useShadow = false;
+        private int shadowAngle = 45;
+        private int shadowDistance = 1;
+        private int shadowRadius = 1;
+        private boolean useDistanceField = false;
+        private int glowRadius = 0;
+
+        public Builder() {
+        }
+
+        // builder with all the settings of the existing ones
+        public Builder(RenderSettings settings) {
+            this.font = settings.font;
+            this.multiplier = settings.multiplier;
+            this.fgColor = settings.fgColor;
+            this.bgColor = settings.bgColor;
+            this.outlineColor = settings.outlineColor;
+            this.shadowColor = settings.shadowColor;
+            this.glowColor = settings.glowColor;
+            this.outlineWidth = settings.outlineWidth;
+            this.palette = settings.palette;
+            this.useGradient = settings.useGradient;
+            this.useAntialias = settings.useAntialias;
+            this.useShadow = settings.useShadow;
+            this.shadowAngle = settings.shadowAngle;
+            this.shadowDistance = settings.shadowDistance;
+            this.shadowRadius = settings.shadowRadius;
+            this.useDistanceField = settings.useDistanceField;
+            this.glowRadius = settings.glowRadius;
+        }
+
+        public RenderSettings build() {
+            return new RenderSettings(this);
+        }
+
+        public Builder setFont(Font font) {
+            this.font = font;
+            return this;
+        }
+
+        public Builder setMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        public Builder setFgColor(Color fgColor) {
+            this.fgColor = fgColor;
+            return this;
+        }
+
+        public Builder setBgColor(Color bgColor) {
+            this.bgColor = bgColor;
+            return this;
+        }
+
+        public Builder setOutlineColor(Color outlineColor) {
+            this.outlineColor = outlineColor;
+            return this;
+        }
+
+        public Builder setShadowColor(Color shadowColor) {
+            this.shadowColor = shadowColor;
+            return this;
+        }
+
+        public Builder setGlowColor(Color glowColor) {
+            this.glowColor = glowColor;
+            return this;
+        }
+
+        public Builder setOutlineWidth(int outlineWidth) {
+            this.outlineWidth = outlineWidth;
+            return this;
+        }
+
+        // palette of the indexed glyphs, null for none
+        public Builder setPalette(Palette palette) {
+            this.palette = palette;
+            return this;
+        }
+
+        public Builder setUseGradient(boolean useGradient) {
+            this.useGradient = useGradient;
+            return this;
+        }
+
+        public Builder setUseAntialias(boolean useAntialias) {
+            this.useAntialias = useAntialias;
+            return this;
+        }
+
+        public Builder setUseShadow(boolean useShadow) {
+            this.useShadow = useShadow;
+            return this;
+        }
+
+        public Builder setShadowAngle(int shadowAngle) {
+            this.shadowAngle = shadowAngle;
+            return this;
+        }
+
+        public Builder setShadowDistance(int shadowDistance) {
+            this.shadowDistance = shadowDistance;
+            return this;
+        }
+
+        public Builder setShadowRadius(int shadowRadius) {
+            this.shadowRadius = shadowRadius;
+            return this;
+        }
+
+        public Builder setUseDistanceField(boolean useDistanceField) {
+            this.useDistanceField = useDistanceField;
+            return this;
+        }
+
+        // glow radius, works only with the distance field
+        public Builder setGlowRadius(int glowRadius) {
+            this.glowRadius = glowRadius;
+            return this;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    private RenderSettings(Builder builder) {
+        this.font = builder.font;
+        this.multiplier = builder.multiplier;
+        this.fgColor = builder.fgColor;
+        this.bgColor = builder.bgColor;
+        this.outlineColor = builder.outlineColor;
+        this.shadowColor = builder.shadowColor;
+        this.glowColor = builder.glowColor;
+        this.outlineWidth = builder.outlineWidth;
+        this.palette = builder.palette;
+        this.useGradient = builder.useGradient;
+        this.useAntialias = builder.useAntialias;
+        this.useShadow = builder.useShadow;
+        this.shadowAngle = builder.shadowAngle;
+        this.shadowDistance = builder.shadowDistance;
+        this.shadowRadius = builder.shadowRadius;
+        this.useDistanceField = builder.useDistanceField;
+        this.glowRadius = builder.glowRadius;
+        this.fieldPadding = makeFieldPadding();
+        this.signature = makeSignature();
+        this.maskSignature = makeMaskSignature();
+        this.fieldSignature = makeFieldSignature();
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // room of the distance field effects, rounded up to multiple of four
+    // so the same distance field serves the close effect settings
+    private int makeFieldPadding() {
+        if (!useDistanceField) {
+            return 0;
+        }
+        int reach = glowRadius;
+        if (useShadow) {
+            reach = Math.max(reach, shadowDistance + shadowRadius);
+        }
+        reach += outlineWidth;
+        return (reach + 3) & ~3;
+    }
+
+    // signature of all the settings which affect the char image (for the cache)
+    private String makeSignature() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(font.getName()).append('|').append(font.getStyle()).append('|').append(font.getSize2D());
+        sb.append("|m=").append(multiplier);
+        sb.append("|aa=").append(useAntialias);
+        sb.append("|fg=").append(Integer.toHexString(fgColor.getRGB()));
+        if (useGradient) {
+            sb.append("|bg=").append(Integer.toHexString(bgColor.getRGB()));
+        }
+        if (outlineWidth > 0) {
+            sb.append("|ow=").append(outlineWidth).append(",").append(Integer.toHexString(outlineColor.getRGB()));
+        }
+        if (useShadow) {
+            sb.append("|sh=").append(shadowAngle).append(",").append(shadowDistance).append(",").append(shadowRadius)
+                    .append(",").append(Integer.toHexString(shadowColor.getRGB()));
+        }
+        if (useDistanceField) {
+            sb.append("|sdf");
+            if (glowRadius > 0) {
+                sb.append("|gl=").append(glowRadius).append(",").append(Integer.toHexString(glowColor.getRGB()));
+            }
+        }
+        sb.append("|pal=").append(Palette.nameOf(palette));
+        return sb.toString();
+    }
+
+    // signature of the settings which affect the shape of the char and it's effects (for the cached masks)
+    private String makeMaskSignature() {
+        StringBuilder sb = new StringBuilder("mask|");
+        sb.append(font.getName()).append('|').append(font.getStyle()).append('|').append(font.getSize2D());
+        sb.append("|m=").append(multiplier);
+        sb.append("|aa=").append(useAntialias);
+        sb.append("|grad=").append(useGradient);
+        if (outlineWidth > 0) {
+            sb.append("|ow=").append(outlineWidth);
+        }
+        if (useShadow) {
+            sb.append("|sh=").append(shadowAngle).append(",").append(shadowDistance).append(",").append(shadowRadius);
+        }
+        if (useDistanceField) {
+            sb.append("|sdf");
+            if (glowRadius > 0) {
+                sb.append("|gl=").append(glowRadius);
+            }
+        }
+        return sb.toString();
+    }
+
+    // signature of the settings which affect the distance field (effects have only their room in it)
+    private String makeFieldSignature() {
+        StringBuilder sb = new StringBuilder("field|");
+        sb.append(font.getName()).append('|').append(font.getStyle()).append('|').append(font.getSize2D());
+        sb.append("|m=").append(multiplier);
+        sb.append("|aa=").append(useAntialias);
+        sb.append("|grad=").append(useGradient);
+        sb.append("|pad=").append(fieldPadding);
+        return sb.toString();
+    }
+
+    // builder starting from these settings
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    @Override
+    public String toString() {
+        return signature;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public Font getFont() {
+        return font;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public Color getFgColor() {
+        return fgColor;
+    }
+
+    public Color getBgColor() {
+        return bgColor;
+    }
+
+    public Color getOutlineColor() {
+        return outlineColor;
+    }
+
+    public Color getShadowColor() {
+        return shadowColor;
+    }
+
+    public Color getGlowColor() {
+        return glowColor;
+    }
+
+    public int getOutlineWidth() {
+        return outlineWidth;
+    }
+
+    public Palette getPalette() {
+        return palette;
+    }
+
+    public boolean isUseGradient() {
+        return useGradient;
+    }
+
+    public boolean isUseAntialias() {
+        return useAntialias;
+    }
+
+    public boolean isUseShadow() {
+        return useShadow;
+    }
+
+    public int getShadowAngle() {
+        return shadowAngle;
+    }
+
+    public int getShadowDistance() {
+        return shadowDistance;
+    }
+
+    public int getShadowRadius() {
+        return shadowRadius;
+    }
+
+    public boolean isUseDistanceField() {
+        return useDistanceField;
+    }
+
+    public int getGlowRadius() {
+        return glowRadius;
+    }
+
+    public int getFieldPadding() {
+        return fieldPadding;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public String getMaskSignature() {
+        return maskSignature;
+    }
+
+    public String getFieldSignature() {
+        return fieldSignature;
+    }
+
+}
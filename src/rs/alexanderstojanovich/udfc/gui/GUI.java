@@ -41,6 +41,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import rs.alexanderstojanovich.udfc.core.ExportMetrics;
 
 /**
  *
@@ -857,18 +858,14 @@ public class GUI extends javax.swing.JFrame {
         if (dstFile == null) {
             chooseDstDir();
         }
-        synchronized (this.guiLogic.getSyncObj()) {
-            this.guiLogic.getSyncObj().notify();
-        }
+        this.guiLogic.submitJob();
     }//GEN-LAST:event_fileExportActionPerformed
 
     private void fileExportAsActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_fileExportAsActionPerformed
         // TODO add your handling code here:
         boolean val = chooseDstDir();
         if (val) {
-            synchronized (this.guiLogic.getSyncObj()) {
-                this.guiLogic.getSyncObj().notify();
-            }
+            this.guiLogic.submitJob();
         }
     }//GEN-LAST:event_fileExportAsActionPerformed
 
@@ -884,9 +881,7 @@ public class GUI extends javax.swing.JFrame {
 
     private void jobGOActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jobGOActionPerformed
         // TODO add your handling code here
-        synchronized (this.guiLogic.getSyncObj()) {
-            this.guiLogic.getSyncObj().notify();
-        }
+        this.guiLogic.submitJob();
     }//GEN-LAST:event_jobGOActionPerformed
 
     private void fontBoldActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_fontBoldActionPerformed
@@ -901,7 +896,7 @@ public class GUI extends javax.swing.JFrame {
 
     private void jobSTOPActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jobSTOPActionPerformed
         // TODO add your handling code here:
-        guiLogic.setReqSTOP(true);
+        guiLogic.cancelJobs();
     }//GEN-LAST:event_jobSTOPActionPerformed
 
     private void fontFormatSelectorActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_fontFormatSelectorActionPerformed
@@ -1064,7 +1059,7 @@ public class GUI extends javax.swing.JFrame {
 
     private void fileSTOPActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_fileSTOPActionPerformed
         // TODO add your handling code here:
-        this.guiLogic.setReqSTOP(true);
+        this.guiLogic.cancelJobs();
     }//GEN-LAST:event_fileSTOPActionPerformed
 
     // Center the GUI window into center of the screen
@@ -1167,7 +1162,8 @@ public class GUI extends javax.swing.JFrame {
             public void run() {
                 GUI gui = new GUI();
                 gui.setVisible(true);
-                gui.guiLogic.getJobWorker().start();
+                // long exports can be watched (and stopped or paused) from JConsole/VisualVM
+                ExportMetrics.register();
             }
         });
     }
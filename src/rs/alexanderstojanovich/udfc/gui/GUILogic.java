@@ -18,29 +18,18 @@ package rs.alexanderstojanovich.udfc.gui;
 
 import java.awt.Color;
 import java.awt.Font;
-import java.awt.GradientPaint;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.font.FontRenderContext;
-import java.awt.font.GlyphVector;
-import java.awt.font.TextLayout;
-import java.awt.geom.Rectangle2D;
+import java.awt.event.ActionEvent;
 import java.awt.image.BufferedImage;
-import java.awt.image.IndexColorModel;
-import java.awt.image.WritableRaster;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-import javax.imageio.ImageIO;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -48,10 +37,19 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.BevelBorder;
+import rs.alexanderstojanovich.udfc.core.CancellationToken;
+import rs.alexanderstojanovich.udfc.core.FontExporter;
+import rs.alexanderstojanovich.udfc.core.GlyphRenderer;
+import rs.alexanderstojanovich.udfc.core.JobScheduler;
+import rs.alexanderstojanovich.udfc.core.ProgressMonitor;
+import rs.alexanderstojanovich.udfc.core.RenderSettings;
 import rs.alexanderstojanovich.udfc.util.CharRange;
-import rs.alexanderstojanovich.udfc.util.ColorSample;
+import rs.alexanderstojanovich.udfc.util.GlyphCache;
 import rs.alexanderstojanovich.udfc.util.Palette;
+import rs.alexanderstojanovich.udfc.util.Pipeline;
 
 /**
  *
@@ -73,8 +71,6 @@ public class GUILogic {
     // goal is to make this archive
     private File fontPK3;
 
-    // font from the OS from which we derive the GZDoom font
-    private Font myFont = new Font("Courier New", Font.PLAIN, 12);
     // GZDoom font format
     private String fontFormat = "Console Font";
 
@@ -82,13 +78,13 @@ public class GUILogic {
     Comparator<CharRange> jobTaskComp = (CharRange o1, CharRange o2) -> (o1.getFirstChar() - o2.getFirstChar());
 
     // char range of latin script
-    public static final CharRange LATIN = new CharRange(0x0000, 0x00FF);
+    public static final CharRange LATIN = CharRange.LATIN;
     // yea but extented
-    public static final CharRange LATIN_EXT = new CharRange(0x0100, 0x024F);
+    public static final CharRange LATIN_EXT = CharRange.LATIN_EXT;
     // cyrillic
-    public static final CharRange CYRILLIC = new CharRange(0x0400, 0x04FF);
+    public static final CharRange CYRILLIC = CharRange.CYRILLIC;
     // and greek
-    public static final CharRange GREEK = new CharRange(0x0370, 0x03FF);
+    public static final CharRange GREEK = CharRange.GREEK;
 
     // pair of character ranges used for coverage
     private List<CharRange> jobTaskList = new LinkedList<>();
@@ -98,26 +94,6 @@ public class GUILogic {
     // end char of the character range
     private int endChar = 127;
 
-    // multiplier of cell size
-    private double multiplier = 1.0;
-
-    // primary color (foreground)
-    private Color fgColor = Color.YELLOW;
-    // secondary color (background)
-    private Color bgColor = Color.CYAN;
-    // outline color (if outline has been selected by the user)
-    private Color outlineColor = Color.BLUE;
-
-    // shadow color (if shadow has been selected by the user)
-    private Color shadowColor = Color.GRAY;
-
-    // outline thickness
-    private int outlineWidth = 0;
-
-    // One of the five choices for the palette, choosing other than None
-    // will convert image to indexed one
-    private String palette = "None";
-
     // via several labels coloured differently
     private JLabel[] colorVector = new JLabel[256];
     // Color panel which holds all the color labels
@@ -130,23 +106,20 @@ public class GUILogic {
     // which gets disabled when iterations are on    
     private List<JComponent> disCompList;
 
-    // use two-color gradient for the font (or use single foreground color)
-    private boolean useGradient = false;
-    // use antialias for the font (better not)
-    private boolean useAntialias = false;
-
-    // use drop shadow feature, cool :)
-    private boolean useShadow = false;
-
-    // shadow angle (degrees) which is clockwise
-    private int shadowAngle = 45;
-
-    // object for thread synchronization
-    private final Object syncObj = new Object();
-    // thread which makes the pk3 file
-    private Thread jobWorker;
-    // stop request from the user, job worker will stop promptly
-    private boolean reqSTOP = false;
+    // export jobs queued from the GUI (Console, Small and Big font can go back to back)
+    private final JobScheduler scheduler = new JobScheduler(1);
+    // exporter of each job (until it's finished), with the progress and export options of the job
+    private final Map<JobScheduler.JobHandle, FontExporter> jobExporters = new ConcurrentHashMap<>();
+    // shows the progress of the running job at the refresh rate (on the EDT), runs while there are jobs
+    private final Timer progressTimer = new Timer(ProgressMonitor.REFRESH_MILLIS, (ActionEvent e) -> refreshProgress());
+
+    // render settings chosen on the GUI (font, colors, effects and palette), each change makes new snapshot,
+    // so preview and the job render with the settings they started with
+    private volatile RenderSettings settings = RenderSettings.DEFAULT;
+    // renders the glyphs, shared by preview and the job
+    private final GlyphRenderer renderer = new GlyphRenderer();
+    // export options of the next jobs, each job makes the pk3 file with it's own copy
+    private final FontExporter exporter = new FontExporter(renderer);
 
     // way to test the font without making the pk3 file :)
     private final GUIFontPreview gfp = new GUIFontPreview();
@@ -158,28 +131,27 @@ public class GUILogic {
         this.colorPanel = colorPanel;
         this.progressBar = progressBar;
         this.progressBar.setForeground(Color.WHITE);
+        this.progressBar.setStringPainted(true);
+        this.progressBar.setString("");
         this.disCompList = disCompList;
         initColorVectors();
 
-        this.jobWorker = new Thread("Job Worker") {
+        // STOP follows the jobs, results are shown on the EDT
+        this.scheduler.setListener(new JobScheduler.JobListener() {
             @Override
-            public void run() {
-                while (true) {
-                    synchronized (syncObj) {
-                        try {
-                            syncObj.wait();
-                        } catch (InterruptedException ex) {
-                            Logger.getLogger(GUILogic.class.getName()).log(Level.SEVERE, null, ex);
-                        }
-                    }
-                    setDisabledComps();
-                    go();
-                    setEnabledComps();
-                    progressBar.setValue(0);
-                    progressBar.validate();
-                }
+            public void started(JobScheduler.JobHandle job) {
+                SwingUtilities.invokeLater(() -> updateComps());
             }
-        };
+
+            @Override
+            public void finished(JobScheduler.JobHandle job) {
+                SwingUtilities.invokeLater(() -> {
+                    FontExporter jobExporter = jobExporters.remove(job);
+                    updateComps();
+                    showJobResult(job, jobExporter);
+                });
+            }
+        });
         this.initialized = true;
     }
 
@@ -198,149 +170,10 @@ public class GUILogic {
         }
     }
 
-    // give char image rendering certain char!
+    // give char image rendering certain char (or from the cache if it's already rendered)!
+    // cached image is shared between preview and the job, so don't alter it!
     public BufferedImage giveChImg(char ch) {
-        // define sampler
-        double sampler = multiplier;
-        if (outlineWidth > 0) {
-            sampler *= 2.0 * outlineWidth;
-        }
-        if (useShadow) {
-            sampler *= 2.0;
-        }
-        // create the FontRenderContext object which helps us to measure the text
-        // subsequently craeting the rectangle for measuring the width and height
-        // and the glyph vector containing the character, of course!
-        FontRenderContext frc = new FontRenderContext(null, useAntialias, true);
-        Rectangle2D rect = myFont.getStringBounds(String.valueOf(ch), frc);
-        rect.setRect(rect.getX(), rect.getY(), rect.getWidth() + sampler, rect.getHeight() + sampler);
-        GlyphVector gv = myFont.createGlyphVector(frc, String.valueOf(ch));
-
-        // calculating with and height and adding +1 to be correctly displayed
-        int w = (int) Math.round(rect.getWidth()) + 1;
-        int h = (int) Math.round(rect.getHeight()) + 1;
-
-        BufferedImage chImg = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-
-        // create rendering char image graphics, where rendering take place
-        Graphics2D chRender = chImg.createGraphics();
-        // do the first necessary translation for each
-        chRender.translate(0, -rect.getY());
-
-        // don't forget to set font!
-        chRender.setFont(myFont);
-
-        if (useAntialias) {
-            chRender.setRenderingHint(
-                    RenderingHints.KEY_TEXT_ANTIALIASING,
-                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-
-            chRender.setRenderingHint(
-                    RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-        } else {
-            chRender.setRenderingHint(
-                    RenderingHints.KEY_TEXT_ANTIALIASING,
-                    RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT);
-
-            chRender.setRenderingHint(
-                    RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_DEFAULT);
-        }
-
-        if (useGradient) {
-            TextLayout chLayout = new TextLayout(String.valueOf(ch), myFont, frc);
-            Rectangle2D gb = chLayout.getBounds();
-            GradientPaint gp = new GradientPaint(
-                    0.0f, (float) gb.getMinY() - (float) (0.5f * sampler),
-                    fgColor,
-                    0.0f, (float) gb.getMaxY() + (float) (0.5f * sampler),
-                    bgColor, false);
-            chRender.setPaint(gp);
-        } else {
-            chRender.setColor(fgColor);
-        }
-        chRender.drawGlyphVector(gv, (float) (0.5f * sampler), (float) (0.5f * sampler));
-
-        //if antialiasing is selected multiply color with it's alpha
-        if (useAntialias) {
-            for (int px = 0; px < chImg.getWidth(); px++) {
-                for (int py = 0; py < chImg.getHeight(); py++) {
-                    Color srcCol = new Color(chImg.getRGB(px, py), true);
-                    if (srcCol.getAlpha() > 0) { // this if is in order to not ruin the borders around the chars
-                        Color dstCol = new Color( // constructor with the three floats is called
-                                (srcCol.getAlpha() / 255.0f) * (srcCol.getRed() / 255.0f),
-                                (srcCol.getAlpha() / 255.0f) * (srcCol.getGreen() / 255.0f),
-                                (srcCol.getAlpha() / 255.0f) * (srcCol.getBlue() / 255.0f)
-                        );
-                        chImg.setRGB(px, py, dstCol.getRGB());
-                    }
-                }
-            }
-        }
-        // if outline is selected;
-        if (outlineWidth > 0) {
-            // Copy of raster of unaltered image is needed!!
-            WritableRaster wr = chImg.copyData(null);
-            for (int px = 0; px < chImg.getWidth(); px++) {
-                for (int py = 0; py < chImg.getHeight(); py++) {
-                    Color pixCol = new Color(chImg.getRGB(px, py), true);
-                    // writtable raster must be associated with ARGB image!!
-                    ColorSample cs = ColorSample.getSample(wr, px, py, outlineWidth);
-                    if (pixCol.getAlpha() == 0 && cs.getAlpha() > 0) {
-                        chImg.setRGB(px, py, outlineColor.getRGB());
-                    }
-                }
-            }
-        }
-        // if user selected shadow; this is for shadow effect
-        if (useShadow) {
-            WritableRaster wr = chImg.copyData(null);
-            for (int px = 0; px < chImg.getWidth(); px++) {
-                for (int py = 0; py < chImg.getHeight(); py++) {
-                    // calculate dx an dy cuz they are one square away from px and py
-                    float cos = (float) Math.cos(Math.toRadians(shadowAngle));
-                    float sin = (float) Math.sin(Math.toRadians(shadowAngle));
-
-                    float dx = px + cos;
-                    float dy = py + sin;
-                    // constrain dx and dy to the image bounds    
-                    if (dx < 0) {
-                        dx = 0;
-                    } else if (dx > chImg.getWidth() - 1) {
-                        dx = chImg.getWidth() - 1;
-                    }
-
-                    if (dy < 0) {
-                        dy = 0;
-                    } else if (dy > chImg.getHeight() - 1) {
-                        dy = chImg.getHeight() - 1;
-                    }
-
-                    Color dstPixCol = new Color(chImg.getRGB(Math.round(dx), Math.round(dy)), true);
-                    ColorSample csg = ColorSample.getGaussianBlurSample(wr, px, py); // calc gauss blur
-                    float csa = csg.getAlpha() / 255.0f; // reason behind this value used is to prevent "too many wrong" pixels
-                    if (dstPixCol.getAlpha() == 0 && csa >= 0.195346f) {
-                        // to create nice shadow effect multiply shadow color components with alpha_sqrt
-                        float alpha_sqrt = (float) Math.sqrt(csa);
-                        float red = alpha_sqrt * shadowColor.getRed() / 255.0f;
-                        float green = alpha_sqrt * shadowColor.getGreen() / 255.0f;
-                        float blue = alpha_sqrt * shadowColor.getBlue() / 255.0f;
-                        Color fineCol = new Color(red, green, blue);
-                        chImg.setRGB(Math.round(dx), Math.round(dy), fineCol.getRGB());
-                    }
-                }
-            }
-        }
-
-        // if user chose palette in the image, make conversion..
-        if (Palette.isLoaded()) {
-            IndexColorModel icm = new IndexColorModel(8, Palette.getColors().length, Palette.getColBuff(), 0, true);
-            BufferedImage imageIndexed = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_INDEXED, icm);
-            imageIndexed.createGraphics().drawImage(chImg, 0, 0, null);
-            chImg = imageIndexed;
-        }
-        return chImg;
+        return renderer.giveChImg(settings, ch);
     }
 
     // way to preview the fonts (testing it) without actually making it (as a pk3)
@@ -358,12 +191,13 @@ public class GUILogic {
             int totalwidth = 0;
             int maxheight = 0;
             int[] offset = new int[text.length()];
+            RenderSettings snapshot = settings;
             BufferedImage[] chImgs = new BufferedImage[text.length()];
             // 3. calculating the parameters for the final (text) image
             // also gathering char images into an array
             for (int i = 0; i < text.length(); i++) {
                 char ch = text.charAt(i);
-                BufferedImage chImg = giveChImg(ch);
+                BufferedImage chImg = renderer.giveChImg(snapshot, ch);
                 chImgs[i] = chImg;
                 offset[i] = totalwidth;
                 totalwidth += chImg.getWidth();
@@ -384,136 +218,18 @@ public class GUILogic {
         }
     }
 
-    // create the pk3 file, the main steel method; job worker uses it!
-    private void go() {
+    // queue the job with the current settings, it runs when a worker is free
+    public JobScheduler.JobHandle submitJob() {
+        return submitJob(JobScheduler.PRIORITY_NORMAL);
+    }
+
+    // queue the job with the current settings (snapshot of them), returns null if there's no job
+    public JobScheduler.JobHandle submitJob(int priority) {
         // Since GZDoom you can make font folder with font pics.. cool!
-        // Lets determine main entry of .pk3, what it should be called..
-        String fontDirName;
-        switch (fontFormat) {
-            case "Console Font":
-                fontDirName = "consolefont";
-                break;
-            case "Small Font":
-                fontDirName = "defsmallfont";
-                break;
-            case "Big Font":
-                fontDirName = "bigfont";
-                break;
-            case "Big Upper":
-                fontDirName = "bigupper";
-                break;
-            default:
-                return;
-        }
-        if (!fontPK3.getName().contains(".pk3")) {
-            fontPK3 = new File(fontPK3.getAbsolutePath() + ".pk3");
-        }
-        // if file exists delete file        
-        if (fontPK3.exists()) {
-            fontPK3.delete();
-        }
-        ZipOutputStream zos = null;
-        try {
-            zos = new ZipOutputStream(new FileOutputStream(fontPK3));
-            StringBuilder sb = new StringBuilder();
-
-            sb.append("filter/");
-            ZipEntry firstDirEntry = new ZipEntry(sb.toString());
-            zos.putNextEntry(firstDirEntry);
-            zos.closeEntry();
-
-            sb.append("doom.id/");
-            ZipEntry secondDirEntry = new ZipEntry(sb.toString());
-            zos.putNextEntry(secondDirEntry);
-            zos.closeEntry();
-
-            sb.append("fonts/");
-            ZipEntry thirdDirEntry = new ZipEntry(sb.toString());
-            zos.putNextEntry(thirdDirEntry);
-            zos.closeEntry();
-
-            sb.append(fontDirName).append("/");
-            ZipEntry fourthDirEntry = new ZipEntry(sb.toString());
-            zos.putNextEntry(fourthDirEntry);
-            zos.closeEntry();
-
-            float progress = 0.0f;
-
-            switch (creationMode) {
-                // user chosen coverage (Latin, Latin Extented, Cyrillic and Greek)
-                case CHAR_COVERAGE:
-                    jobTaskList.sort(jobTaskComp);
-                    upper:
-                    for (CharRange pair : jobTaskList) {
-                        for (int i = pair.getFirstChar(); i <= pair.getLastChar(); i++) {
-                            if (reqSTOP) {
-                                break upper;
-                            }
-                            BufferedImage chImg = giveChImg((char) i);
-
-                            // determine the image name
-                            String imgFileName = String.format("%04X", i) + ".png";
-                            // making entry with the image name which is inside main dir entry
-                            ZipEntry entry = new ZipEntry(sb.toString() + imgFileName);
-                            // putting the entry..
-                            zos.putNextEntry(entry);
-
-                            // which contains the image.. yes!
-                            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                            ImageIO.write(chImg, "png", baos);
-                            byte[] data = baos.toByteArray();
-                            zos.write(data);
-                            zos.closeEntry();
-                            // closing the entry!
-
-                            progress += 1.0f / (float) ((pair.getLastChar() - pair.getFirstChar() + 1) * jobTaskList.size());
-                            progressBar.setValue(Math.round(100 * progress));
-                            progressBar.validate();
-                        }
-                    }
-                    break;
-                // user chosen specific range
-                case CHAR_RANGE:
-                    for (int i = beginChar; i <= endChar && !reqSTOP; i++) {
-                        BufferedImage chImg = giveChImg((char) i);
-
-                        // determine the image name
-                        String imgFileName = String.format("%04X", i) + ".png";
-                        // making entry with the image name which is inside main dir entry
-                        ZipEntry entry = new ZipEntry(sb.toString() + imgFileName);
-                        // putting the entry..
-                        zos.putNextEntry(entry);
-
-                        // which contains the image.. yes!
-                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                        ImageIO.write(chImg, "png", baos);
-                        byte[] data = baos.toByteArray();
-                        zos.write(data);
-                        zos.closeEntry();
-                        // closing the entry!
-
-                        progress += 1.0f / (float) (endChar - beginChar + 1);
-                        progressBar.setValue(Math.round(100 * progress));
-                        progressBar.validate();
-                    }
-                    break;
-            }
-        } catch (FileNotFoundException ex) {
-            Logger.getLogger(GUILogic.class.getName()).log(Level.SEVERE, null, ex);
-        } catch (IOException ex) {
-            Logger.getLogger(GUILogic.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            if (zos != null) {
-                try {
-                    zos.close();
-                } catch (IOException ex) {
-                    Logger.getLogger(GUILogic.class.getName()).log(Level.SEVERE, null, ex);
-                }
-            }
+        if (fontPK3 == null || FontExporter.fontDirName(fontFormat) == null) {
+            return null;
         }
-
         // when job is empty - some error messages
-        boolean error = false;
         if (creationMode == CreationMode.CHAR_COVERAGE && jobTaskList.isEmpty()) {
             JOptionPane.showMessageDialog(
                     null,
@@ -521,7 +237,7 @@ public class GUILogic {
                     "Job Result",
                     JOptionPane.ERROR_MESSAGE
             );
-            error = true;
+            return null;
         } else if (creationMode == CreationMode.CHAR_RANGE && beginChar > endChar) {
             JOptionPane.showMessageDialog(
                     null,
@@ -529,62 +245,128 @@ public class GUILogic {
                     "Job Result",
                     JOptionPane.ERROR_MESSAGE
             );
-            error = true;
+            return null;
         }
-
-        // if user demanded stop with stop signal (by pressing the button or via menu)!
-        if (reqSTOP) {
+        final File jobPK3 = FontExporter.pk3File(fontPK3);
+        // two jobs writing the same pk3 (and it's part file) would spoil it
+        for (JobScheduler.JobHandle job : scheduler.getJobs()) {
+            if (job.getName().equals(jobPK3.getPath())) {
+                JOptionPane.showMessageDialog(
+                        null,
+                        "Job making " + jobPK3.getName() + " is already queued!",
+                        "Job Result",
+                        JOptionPane.ERROR_MESSAGE
+                );
+                return null;
+            }
+        }
+        // user chosen coverage (Latin, Latin Extented, Cyrillic and Greek)
+        // or user chosen specific range, either way ascending code points
+        final int[] codePoints = jobCodePoints();
+        final RenderSettings jobSettings = settings;
+        final String jobFormat = fontFormat;
+        final FontExporter jobExporter = new FontExporter(exporter);
+        JobScheduler.JobHandle job = scheduler.submit(jobPK3.getPath(), priority,
+                (CancellationToken token) -> jobExporter.export(jobSettings, jobPK3, jobFormat, codePoints, token));
+        jobExporters.put(job, jobExporter);
+        updateComps();
+        return job;
+    }
+
+    // stop the running jobs and remove the queued ones
+    public void cancelJobs() {
+        scheduler.cancelAll();
+    }
+
+    // show how the job ended (on the EDT), job exporter tells if the job was resumable when it was submitted
+    private void showJobResult(JobScheduler.JobHandle job, FontExporter jobExporter) {
+        String title = "Job Result - " + new File(job.getName()).getName();
+        try {
+            if (job.get()) {
+                JOptionPane.showMessageDialog(
+                        null,
+                        "Job finished successfuly!",
+                        title,
+                        JOptionPane.INFORMATION_MESSAGE
+                );
+            } else {
+                // if user demanded stop with stop signal (by pressing the button or via menu)!
+                JOptionPane.showMessageDialog(
+                        null,
+                        (jobExporter != null && jobExporter.isResumable()) ? "Job terminated! Run the same job again to resume it." : "Job terminated!",
+                        title,
+                        JOptionPane.ERROR_MESSAGE
+                );
+            }
+        } catch (CancellationException ex) {
+            // removed from the queue before it started, nothing to show
+        } catch (InterruptedException ex) {
+            Logger.getLogger(GUILogic.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (ExecutionException ex) {
+            Logger.getLogger(GUILogic.class.getName()).log(Level.SEVERE, null, ex.getCause());
             JOptionPane.showMessageDialog(
                     null,
-                    "Job terminated!",
-                    "Job Result",
+                    "Job failed! " + ex.getCause(),
+                    title,
                     JOptionPane.ERROR_MESSAGE
             );
-        } else if (!error) {
-            JOptionPane.showMessageDialog(
-                    null,
-                    "Job finished successfuly!",
-                    "Job Result",
-                    JOptionPane.INFORMATION_MESSAGE
-            );
         }
-        reqSTOP = false;
     }
 
-    // palette load wrapper
-    public void loadPalette(String palette) {
-        switch (palette) {
-            case "Doom":
-                Palette.load("DoomPalette.pal");
-                break;
-            case "Heretic":
-                Palette.load("HereticPalette.pal");
-                break;
-            case "Hexen":
-                Palette.load("HexenPalette.pal");
+    // gather code points of the job in ascending order (that's the order of the entries)
+    private int[] jobCodePoints() {
+        int[] codePoints;
+        int index = 0;
+        switch (creationMode) {
+            case CHAR_COVERAGE:
+                jobTaskList.sort(jobTaskComp);
+                codePoints = FontExporter.codePoints(jobTaskList);
                 break;
-            case "6-bit RGB":
-                Palette.load6bitRGB();
-                break;
-            case "8-bit RGB":
-                Palette.load8bitRGB();
+            case CHAR_RANGE:
+                codePoints = new int[Math.max(endChar - beginChar + 1, 0)];
+                for (int i = beginChar; i <= endChar; i++) {
+                    codePoints[index++] = i;
+                }
                 break;
             default:
-                Palette.reset();
+                codePoints = new int[0];
                 break;
         }
+        return codePoints;
+    }
+
+    // show the progress of the running job, job itself only counts the glyphs (on the EDT)
+    private void refreshProgress() {
+        List<JobScheduler.JobHandle> jobs = scheduler.getJobs();
+        for (JobScheduler.JobHandle job : jobs) {
+            FontExporter jobExporter = jobExporters.get(job);
+            if (job.isStarted() && jobExporter != null) {
+                ProgressMonitor.Progress progress = jobExporter.getMonitor().publish();
+                progressBar.setValue(progress.getPercent());
+                progressBar.setString(new File(job.getName()).getName() + " " + progress
+                        + ((jobs.size() > 1) ? " (+" + (jobs.size() - 1) + " queued)" : ""));
+                return;
+            }
+        }
+    }
+
+    // palette load wrapper
+    public void loadPalette(String palette) {
+        settings = settings.toBuilder().setPalette(Palette.forName(palette)).build();
     }
 
     // display palette in the effects area
     public void displayPalette() {
-        if (Palette.isLoaded()) {
-            for (int i = 0; i < Palette.getColors().length; i++) {
-                Color col = new Color(Palette.getColors()[i]);
+        Palette palette = settings.getPalette();
+        if (palette != null) {
+            int[] colors = palette.getColors();
+            for (int i = 0; i < colors.length; i++) {
+                Color col = new Color(colors[i]);
                 colorVector[i].setBackground(col);
                 colorVector[i].setToolTipText("Red = " + col.getRed()
                         + ", Green = " + col.getGreen() + ", Blue = " + col.getBlue());
             }
-            for (int j = Palette.getColors().length; j < colorVector.length; j++) {
+            for (int j = colors.length; j < colorVector.length; j++) {
                 colorVector[j].setBackground(Color.BLACK);
                 colorVector[j].setToolTipText(null);
             }
@@ -596,29 +378,29 @@ public class GUILogic {
         }
     }
 
-    // set enabled components all apart from "STOP"
-    private void setEnabledComps() {
+    // components stay enabled (more jobs can be queued meanwhile), "STOP" is enabled while there are jobs
+    private void updateComps() {
+        boolean busy = scheduler.isBusy();
         for (JComponent comp : disCompList) {
             if (comp instanceof JButton) {
                 JButton button = (JButton) comp;
-                button.setEnabled(!button.getText().toUpperCase().equals("STOP"));
+                if (button.getText().toUpperCase().equals("STOP")) {
+                    button.setEnabled(busy);
+                }
             } else if (comp instanceof JMenuItem) {
                 JMenuItem item = (JMenuItem) comp;
-                item.setEnabled(!item.getText().toUpperCase().equals("STOP"));
+                if (item.getText().toUpperCase().equals("STOP")) {
+                    item.setEnabled(busy);
+                }
             }
         }
-    }
-
-    // set disabled components all apart from "STOP"
-    private void setDisabledComps() {
-        for (JComponent comp : disCompList) {
-            if (comp instanceof JButton) {
-                JButton button = (JButton) comp;
-                button.setEnabled(button.getText().toUpperCase().equals("STOP"));
-            } else if (comp instanceof JMenuItem) {
-                JMenuItem item = (JMenuItem) comp;
-                item.setEnabled(item.getText().toUpperCase().equals("STOP"));
-            }
+        if (busy) {
+            progressTimer.start();
+        } else {
+            progressTimer.stop();
+            progressBar.setValue(0);
+            progressBar.setString("");
+            progressBar.validate();
         }
     }
 
@@ -628,28 +410,14 @@ public class GUILogic {
         creationMode = CreationMode.CHAR_COVERAGE;
         jobTaskList.clear();
 
-        myFont = new Font("Courier New", Font.PLAIN, 12);
         fontPK3 = null;
 
         beginChar = 32;
         endChar = 127;
 
-        fgColor = Color.YELLOW;
-        bgColor = Color.CYAN;
-        outlineColor = Color.BLUE;
-        shadowColor = Color.GRAY;
-        outlineWidth = 0;
-
-        palette = "None";
-        useGradient = false;
-        useAntialias = false;
-        useShadow = false;
-
-        shadowAngle = 45;
-
-        reqSTOP = false;
-
-        Palette.reset();
+        // multiplier stays as it is
+        settings = new RenderSettings.Builder().setMultiplier(settings.getMultiplier()).build();
+        renderer.getGlyphCache().clear();
     }
     //--------------------------------------------------------------------------
     // C - GETTERS AND SETTERS
@@ -680,11 +448,11 @@ public class GUILogic {
     }
 
     public Font getMyFont() {
-        return myFont;
+        return settings.getFont();
     }
 
     public void setMyFont(Font myFont) {
-        this.myFont = myFont;
+        settings = settings.toBuilder().setFont(myFont).build();
     }
 
     public String getFontFormat() {
@@ -728,59 +496,67 @@ public class GUILogic {
     }
 
     public double getMultiplier() {
-        return multiplier;
+        return settings.getMultiplier();
     }
 
     public void setMultiplier(double multiplier) {
-        this.multiplier = multiplier;
+        settings = settings.toBuilder().setMultiplier(multiplier).build();
     }
 
     public Color getFgColor() {
-        return fgColor;
+        return settings.getFgColor();
     }
 
     public void setFgColor(Color fgColor) {
-        this.fgColor = fgColor;
+        settings = settings.toBuilder().setFgColor(fgColor).build();
     }
 
     public Color getBgColor() {
-        return bgColor;
+        return settings.getBgColor();
     }
 
     public void setBgColor(Color bgColor) {
-        this.bgColor = bgColor;
+        settings = settings.toBuilder().setBgColor(bgColor).build();
     }
 
     public Color getOutlineColor() {
-        return outlineColor;
+        return settings.getOutlineColor();
     }
 
     public void setOutlineColor(Color outlineColor) {
-        this.outlineColor = outlineColor;
+        settings = settings.toBuilder().setOutlineColor(outlineColor).build();
     }
 
     public Color getShadowColor() {
-        return shadowColor;
+        return settings.getShadowColor();
     }
 
     public void setShadowColor(Color shadowColor) {
-        this.shadowColor = shadowColor;
+        settings = settings.toBuilder().setShadowColor(shadowColor).build();
+    }
+
+    public Color getGlowColor() {
+        return settings.getGlowColor();
+    }
+
+    public void setGlowColor(Color glowColor) {
+        settings = settings.toBuilder().setGlowColor(glowColor).build();
     }
 
     public int getOutlineWidth() {
-        return outlineWidth;
+        return settings.getOutlineWidth();
     }
 
     public void setOutlineWidth(int outlineWidth) {
-        this.outlineWidth = outlineWidth;
+        settings = settings.toBuilder().setOutlineWidth(outlineWidth).build();
     }
 
     public String getPalette() {
-        return palette;
+        return Palette.nameOf(settings.getPalette());
     }
 
     public void setPalette(String palette) {
-        this.palette = palette;
+        loadPalette(palette);
     }
 
     public JLabel[] getColorVector() {
@@ -816,59 +592,172 @@ public class GUILogic {
     }
 
     public boolean isUseGradient() {
-        return useGradient;
+        return settings.isUseGradient();
     }
 
     public void setUseGradient(boolean useGradient) {
-        this.useGradient = useGradient;
+        settings = settings.toBuilder().setUseGradient(useGradient).build();
     }
 
     public boolean isUseAntialias() {
-        return useAntialias;
+        return settings.isUseAntialias();
     }
 
     public void setUseAntialias(boolean useAntialias) {
-        this.useAntialias = useAntialias;
+        settings = settings.toBuilder().setUseAntialias(useAntialias).build();
     }
 
     public boolean isUseShadow() {
-        return useShadow;
+        return settings.isUseShadow();
     }
 
     public void setUseShadow(boolean useShadow) {
-        this.useShadow = useShadow;
+        settings = settings.toBuilder().setUseShadow(useShadow).build();
     }
 
     public int getShadowAngle() {
-        return shadowAngle;
+        return settings.getShadowAngle();
     }
 
     public void setShadowAngle(int shadowAngle) {
-        this.shadowAngle = shadowAngle;
+        settings = settings.toBuilder().setShadowAngle(shadowAngle).build();
+    }
+
+    public int getShadowDistance() {
+        return settings.getShadowDistance();
+    }
+
+    public void setShadowDistance(int shadowDistance) {
+        settings = settings.toBuilder().setShadowDistance(shadowDistance).build();
+    }
+
+    public int getShadowRadius() {
+        return settings.getShadowRadius();
+    }
+
+    public void setShadowRadius(int shadowRadius) {
+        settings = settings.toBuilder().setShadowRadius(shadowRadius).build();
+    }
+
+    public boolean isUseDistanceField() {
+        return settings.isUseDistanceField();
+    }
+
+    public void setUseDistanceField(boolean useDistanceField) {
+        settings = settings.toBuilder().setUseDistanceField(useDistanceField).build();
+    }
+
+    public int getGlowRadius() {
+        return settings.getGlowRadius();
+    }
+
+    public void setGlowRadius(int glowRadius) {
+        settings = settings.toBuilder().setGlowRadius(glowRadius).build();
+    }
+
+    public FontExporter.ExportMode getExportMode() {
+        return exporter.getExportMode();
     }
 
-    public Thread getJobWorker() {
-        return jobWorker;
+    public void setExportMode(FontExporter.ExportMode exportMode) {
+        exporter.setExportMode(exportMode);
     }
 
-    public void setJobWorker(Thread jobWorker) {
-        this.jobWorker = jobWorker;
+    public int getPipelineQueueSize() {
+        return exporter.getPipelineQueueSize();
     }
 
-    public boolean isReqSTOP() {
-        return reqSTOP;
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        exporter.setPipelineQueueSize(pipelineQueueSize);
     }
 
-    public void setReqSTOP(boolean reqSTOP) {
-        this.reqSTOP = reqSTOP;
+    // stage statistics (queue depth, stall times) of the current or last pipelined job
+    public List<Pipeline.StageStats> getPipelineStats() {
+        return exporter.getPipelineStats();
     }
 
-    public Object getSyncObj() {
-        return syncObj;
+    public int getParallelism() {
+        return exporter.getParallelism();
+    }
+
+    public void setParallelism(int parallelism) {
+        exporter.setParallelism(parallelism);
+    }
+
+    public JobScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // progress of the submitted job (null when it's finished), listeners get it on the EDT
+    public ProgressMonitor getJobMonitor(JobScheduler.JobHandle job) {
+        FontExporter jobExporter = jobExporters.get(job);
+        return (jobExporter != null) ? jobExporter.getMonitor() : null;
+    }
+
+    public int getJobPoolSize() {
+        return scheduler.getPoolSize();
+    }
+
+    // number of jobs run at once
+    public void setJobPoolSize(int jobPoolSize) {
+        scheduler.setPoolSize(jobPoolSize);
     }
 
     public GUIFontPreview getGfp() {
         return gfp;
     }
 
+    public RenderSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(RenderSettings settings) {
+        this.settings = settings;
+    }
+
+    public GlyphRenderer getRenderer() {
+        return renderer;
+    }
+
+    public FontExporter getExporter() {
+        return exporter;
+    }
+
+    public GlyphCache getGlyphCache() {
+        return renderer.getGlyphCache();
+    }
+
+    public int getCompressionLevel() {
+        return exporter.getCompressionLevel();
+    }
+
+    // deflate level of the glyph pngs (0 - 9)
+    public void setCompressionLevel(int compressionLevel) {
+        exporter.setCompressionLevel(compressionLevel);
+    }
+
+    public boolean isStoreGlyphs() {
+        return exporter.isStoreGlyphs();
+    }
+
+    public void setStoreGlyphs(boolean storeGlyphs) {
+        exporter.setStoreGlyphs(storeGlyphs);
+    }
+
+    public boolean isIncremental() {
+        return exporter.isIncremental();
+    }
+
+    public void setIncremental(boolean incremental) {
+        exporter.setIncremental(incremental);
+    }
+
+    public boolean isResumable() {
+        return exporter.isResumable();
+    }
+
+    public void setResumable(boolean resumable) {
+        exporter.setResumable(resumable);
+    }
+
 }
@@ -0,0 +1,210 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class BitMask { // 1-bit mask packed into 64-bit words, never changes (operations make new masks)
+
+    // each row begins with a new word, leftmost pixel is the highest bit of the word
+    // (same order as in the bytes of binary image), bits past the width are always zero
+    private final int width;
+    private final int height;
+    // words of each row
+    private final int stride;
+    private final long[] words;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    private BitMask(int width, int height, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        this.words = words;
+    }
+
+    // empty mask (no pixels set)
+    public BitMask(int width, int height) {
+        this(width, height, new long[((width + 63) >>> 6) * height]);
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // B1 - Mask of the pixels (one byte per pixel, w x h), non-zero pixels are set
+    public static BitMask of(byte[] pixels, int w, int h) {
+        BitMask mask = new BitMask(w, h);
+        for (int py = 0; py < h; py++) {
+            int src = py * w;
+            int dst = py * mask.stride;
+            for (int k = 0; k < mask.stride; k++) {
+                int first = k << 6;
+                int last = Math.min(first + 64, w);
+                long word = 0L;
+                for (int px = first; px < last; px++) {
+                    if (pixels[src + px] != 0) {
+                        word |= Long.MIN_VALUE >>> (px - first);
+                    }
+                }
+                mask.words[dst + k] = word;
+            }
+        }
+        return mask;
+    }
+
+    // bits of the last word of the row which are within the width
+    private long lastWordMask() {
+        int used = width & 63;
+        return (used == 0) ? -1L : -1L << (64 - used);
+    }
+
+    // move bits of the row by shift pixels (right if positive, left if negative), zeros come in,
+    // bits go from the source row into the destination row (ORed into it)
+    private void orShiftedRow(long[] src, int srcRow, long[] dst, int dstRow, int shift) {
+        final int wordShift = shift >> 6; // floor
+        final int bitShift = shift & 63;
+        for (int k = 0; k < stride; k++) {
+            // destination word k takes bits of the source words k - wordShift - 1 and k - wordShift
+            int hi = k - wordShift - 1;
+            int lo = k - wordShift;
+            long word = 0L;
+            if (lo >= 0 && lo < stride) {
+                word |= src[srcRow + lo] >>> bitShift;
+            }
+            if (bitShift != 0 && hi >= 0 && hi < stride) {
+                word |= src[srcRow + hi] << (64 - bitShift);
+            }
+            dst[dstRow + k] |= word;
+        }
+        dst[dstRow + stride - 1] &= lastWordMask();
+    }
+
+    // B2 - Square dilation, pixel is set if any pixel within the radius (chebyshev distance) is set.
+    // Rows and columns separately, each one doubles the reach (log radius word operations per word)
+    public BitMask dilate(int radius) {
+        long[] horizontal = words.clone();
+        int reach = 0;
+        long[] temp = new long[stride];
+        while (reach < radius) {
+            int step = Math.min(reach + 1, radius - reach);
+            for (int py = 0; py < height; py++) {
+                int row = py * stride;
+                System.arraycopy(horizontal, row, temp, 0, stride);
+                orShiftedRow(temp, 0, horizontal, row, step);
+                orShiftedRow(temp, 0, horizontal, row, -step);
+            }
+            reach += step;
+        }
+        long[] result = horizontal;
+        reach = 0;
+        while (reach < radius) {
+            int step = Math.min(reach + 1, radius - reach);
+            long[] next = result.clone();
+            for (int py = 0; py < height; py++) {
+                int row = py * stride;
+                int above = py - step;
+                int below = py + step;
+                for (int k = 0; k < stride; k++) {
+                    long word = 0L;
+                    if (above >= 0) {
+                        word |= result[above * stride + k];
+                    }
+                    if (below < height) {
+                        word |= result[below * stride + k];
+                    }
+                    next[row + k] |= word;
+                }
+            }
+            result = next;
+            reach += step;
+        }
+        return new BitMask(width, height, result);
+    }
+
+    // B3 - Mask moved by dx (right) and dy (down), pixels moved out are lost
+    public BitMask shift(int dx, int dy) {
+        long[] result = new long[words.length];
+        for (int py = Math.max(dy, 0); py < Math.min(height + dy, height); py++) {
+            orShiftedRow(words, (py - dy) * stride, result, py * stride, dx);
+        }
+        return new BitMask(width, height, result);
+    }
+
+    // B4 - Pixels set in this mask or in the other one (of the same size)
+    public BitMask or(BitMask other) {
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] | other.words[i];
+        }
+        return new BitMask(width, height, result);
+    }
+
+    // B5 - Pixels set in this mask and not in the other one (of the same size)
+    public BitMask andNot(BitMask other) {
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] & ~other.words[i];
+        }
+        return new BitMask(width, height, result);
+    }
+
+    // B6 - Alpha of the mask, one byte per pixel (0xFF where it's set)
+    public byte[] toAlpha() {
+        byte[] alpha = new byte[width * height];
+        for (int py = 0; py < height; py++) {
+            int row = py * stride;
+            for (int k = 0; k < stride; k++) {
+                long word = words[row + k];
+                while (word != 0L) {
+                    int bit = Long.numberOfLeadingZeros(word);
+                    alpha[py * width + (k << 6) + bit] = (byte) 0xFF;
+                    word &= ~(Long.MIN_VALUE >>> bit);
+                }
+            }
+        }
+        return alpha;
+    }
+
+    // size of the mask in bytes
+    public long getSize() {
+        return 8L * words.length;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    // words of the rows (shared, don't alter them)
+    public long[] getWords() {
+        return words;
+    }
+
+}
@@ -22,6 +22,15 @@ package rs.alexanderstojanovich.udfc.util;
  */
 public class CharRange { // simple bean, nothing more..
 
+    // char range of latin script
+    public static final CharRange LATIN = new CharRange(0x0000, 0x00FF);
+    // yea but extented
+    public static final CharRange LATIN_EXT = new CharRange(0x0100, 0x024F);
+    // cyrillic
+    public static final CharRange CYRILLIC = new CharRange(0x0400, 0x04FF);
+    // and greek
+    public static final CharRange GREEK = new CharRange(0x0370, 0x03FF);
+
     private final int firstChar;
     private final int lastChar;
 
@@ -0,0 +1,133 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class Checkpoint { // progress of the resumable job, kept in the sidecar file next to it's part file
+
+    // hash of the settings which make the glyphs
+    private final String settingsHash;
+    // dir entry holding the glyphs
+    private final String dirEntryName;
+    // hash of the code points of the job
+    private final String jobHash;
+    // time of all the entries (resumed archive must be same as the one made at once)
+    private final long entryTime;
+    // number of glyphs safely written into the part file
+    private int done = 0;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public Checkpoint(String settingsHash, String dirEntryName, String jobHash, long entryTime) {
+        this.settingsHash = settingsHash;
+        this.dirEntryName = dirEntryName;
+        this.jobHash = jobHash;
+        this.entryTime = entryTime;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // read the checkpoint file, null if there is none (or it's broken)
+    public static Checkpoint read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+            Checkpoint checkpoint = new Checkpoint(props.getProperty("settings"), props.getProperty("dir"),
+                    props.getProperty("job"), Long.parseLong(props.getProperty("time")));
+            checkpoint.done = Integer.parseInt(props.getProperty("done"));
+            if (checkpoint.settingsHash == null || checkpoint.dirEntryName == null || checkpoint.jobHash == null) {
+                return null;
+            }
+            return checkpoint;
+        } catch (IOException | NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // write the checkpoint file, old one is replaced only when the new one is complete
+    public void write(File file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("settings", settingsHash);
+        props.setProperty("dir", dirEntryName);
+        props.setProperty("job", jobHash);
+        props.setProperty("time", String.valueOf(entryTime));
+        props.setProperty("done", String.valueOf(done));
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            props.store(out, "Unicode Doom Font Creator checkpoint");
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // is it the checkpoint of the same job (same settings, dir and code points)
+    public boolean matches(Checkpoint other) {
+        return settingsHash.equals(other.settingsHash)
+                && dirEntryName.equals(other.dirEntryName)
+                && jobHash.equals(other.jobHash);
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS AND SETTERS
+    //--------------------------------------------------------------------------
+    public String getSettingsHash() {
+        return settingsHash;
+    }
+
+    public String getDirEntryName() {
+        return dirEntryName;
+    }
+
+    public String getJobHash() {
+        return jobHash;
+    }
+
+    public long getEntryTime() {
+        return entryTime;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public void setDone(int done) {
+        this.done = done;
+    }
+
+}
@@ -0,0 +1,169 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class DistanceField { // euclidean distance field of the char and the effects made from it by thresholding
+
+    // squared distance of the pixels which are far from everything (empty char)
+    public static final int FAR = Integer.MAX_VALUE;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS (NONE, STATIC METHODS ONLY)
+    //--------------------------------------------------------------------------
+    private DistanceField() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    // B1 - Column distances, distance of each pixel to the nearest pixel of the char in it's column (or far),
+    // two sweeps (down and up) which go row by row, whole rows at once
+    private static int[] columnDistances(byte[] alpha, int w, int h, int far) {
+        int[] g = new int[w * h];
+        for (int px = 0; px < w; px++) {
+            g[px] = (alpha[px] != 0) ? 0 : far;
+        }
+        for (int py = 1; py < h; py++) {
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                g[row + px] = (alpha[row + px] != 0) ? 0 : Math.min(g[row - w + px] + 1, far);
+            }
+        }
+        for (int py = h - 2; py >= 0; py--) {
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                if (g[row + w + px] < g[row + px]) {
+                    g[row + px] = g[row + w + px] + 1;
+                }
+            }
+        }
+        return g;
+    }
+
+    // B2 - Squared euclidean distance of each pixel to the nearest pixel of the char (non-zero alpha),
+    // zero for the pixels of the char and FAR if there's no char at all. Linear time and exact (integers only),
+    // column distances and then lower envelope of their parabolas in each row (Meijster, Roerdink & Hesselink)
+    public static int[] squaredDistances(byte[] alpha, int w, int h) {
+        // farther than any pixel, square of it is still an int
+        final int far = w + h;
+        final int farSquared = far * far;
+        int[] g = columnDistances(alpha, w, h, far);
+        int[] distances = new int[w * h];
+        // parabolas of the envelope (their columns) and where each one begins
+        int[] s = new int[w];
+        int[] t = new int[w];
+        for (int py = 0; py < h; py++) {
+            int row = py * w;
+            int q = 0;
+            s[0] = 0;
+            t[0] = 0;
+            for (int u = 1; u < w; u++) {
+                int gu = g[row + u];
+                while (q >= 0) {
+                    int gs = g[row + s[q]];
+                    int dq = t[q] - s[q];
+                    int du = t[q] - u;
+                    if (dq * dq + gs * gs <= du * du + gu * gu) {
+                        break;
+                    }
+                    q--;
+                }
+                if (q < 0) {
+                    q = 0;
+                    s[0] = u;
+                } else {
+                    int i = s[q];
+                    int gi = g[row + i];
+                    int sep = 1 + Math.floorDiv(u * u - i * i + gu * gu - gi * gi, 2 * (u - i));
+                    if (sep < w) {
+                        q++;
+                        s[q] = u;
+                        t[q] = sep;
+                    }
+                }
+            }
+            for (int u = w - 1; u >= 0; u--) {
+                int gs = g[row + s[q]];
+                int du = u - s[q];
+                int d = du * du + gs * gs;
+                distances[row + u] = (d >= farSquared) ? FAR : d;
+                if (u == t[q]) {
+                    q--;
+                }
+            }
+        }
+        return distances;
+    }
+
+    // B3 - Outline mask, transparent pixel becomes outline (0xFF) if it's within the width around the char
+    public static byte[] outlineMask(byte[] alpha, int[] distances, int width) {
+        final long limit = (long) width * width;
+        byte[] mask = new byte[alpha.length];
+        for (int i = 0; i < alpha.length; i++) {
+            if (alpha[i] == 0 && distances[i] <= limit) {
+                mask[i] = (byte) 0xFF;
+            }
+        }
+        return mask;
+    }
+
+    // distance alpha, full alpha (255) at the edge of the char and it's outline, fades out to zero over the radius
+    private static int fade(int squaredDistance, int outlineWidth, int radius) {
+        if (squaredDistance == FAR) {
+            return 0;
+        }
+        double distance = Math.sqrt(squaredDistance) - outlineWidth;
+        if (distance <= 0.0) {
+            return 0xFF;
+        }
+        return Math.max((int) (0xFF * (1.0 - distance / (radius + 1)) + 0.5), 0);
+    }
+
+    // B4 - Glow mask, transparent pixels around the char (and it's outline) take alpha fading over the radius
+    public static byte[] glowMask(byte[] alpha, int[] distances, int outlineWidth, int radius) {
+        byte[] mask = new byte[alpha.length];
+        for (int i = 0; i < alpha.length; i++) {
+            if (alpha[i] == 0) {
+                mask[i] = (byte) fade(distances[i], outlineWidth, radius);
+            }
+        }
+        return mask;
+    }
+
+    // B5 - Soft shadow mask, the char (and it's outline) moved by distance in direction of the angle (clockwise degrees),
+    // it's alpha fades over the radius (zero radius is hard shadow) and it's put under transparent pixels
+    public static byte[] shadowMask(byte[] alpha, int[] distances, int w, int h, int outlineWidth, int angle, int distance, int radius) {
+        final int dx = Effects.shadowOffset(distance, Math.cos(Math.toRadians(angle)));
+        final int dy = Effects.shadowOffset(distance, Math.sin(Math.toRadians(angle)));
+        byte[] mask = new byte[w * h];
+        for (int py = Math.max(dy, 0); py < Math.min(h + dy, h); py++) {
+            int row = py * w;
+            int srcRow = (py - dy) * w - dx;
+            for (int px = Math.max(dx, 0); px < Math.min(w + dx, w); px++) {
+                if (alpha[row + px] == 0) {
+                    mask[row + px] = (byte) fade(distances[srcRow + px], outlineWidth, radius);
+                }
+            }
+        }
+        return mask;
+    }
+
+}
@@ -0,0 +1,544 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class Effects { // whole image effects working on ARGB pixels (row-major int array)
+
+    // fraction bits of the fixed point kernel taps
+    public static final int KERNEL_BITS = 10;
+    // sigma of the Gaussian kernel per one pixel of blur radius (same as former 3x3 kernel)
+    public static final double SHADOW_SIGMA = 1.0426;
+    // taps of the former 3x3 kernel (ColorSample.getGaussianBlurSample), shadow of radius one still takes them
+    private static final float SIDE_TAP = 0.123317f;
+    private static final float DIAGONAL_TAP = 0.077847f;
+    private static final float CENTER_TAP = 0.195346f;
+
+    // premultiplied color components, indexed by (alpha << 8) | component
+    private static final byte[] PREMULTIPLIED = new byte[256 * 256];
+    // color components which Java2D stores when it draws the component with the coverage onto transparent pixel,
+    // indexed by (coverage << 8) | component, plain and premultiplied like with premultiply
+    private static final byte[] BLENDED = new byte[256 * 256];
+    private static final byte[] BLENDED_PREMULTIPLIED = new byte[256 * 256];
+
+    static {
+        for (int a = 0; a < 256; a++) {
+            for (int c = 0; c < 256; c++) {
+                // same float math and rounding as with java.awt.Color(float, float, float)
+                PREMULTIPLIED[(a << 8) | c] = (byte) (int) ((a / 255.0f) * (c / 255.0f) * 255 + 0.5f);
+            }
+        }
+        // Java2D multiplies the component by the coverage and divides it back (8-bit fixed point tables of AlphaMath)
+        int[] multiplied = new int[256];
+        for (int m = 1; m < 256; m++) {
+            long inc = (m << 16) + (m << 8) + m;
+            long val = inc + (1 << 23);
+            for (int c = 1; c < 256; c++) {
+                multiplied[c] = (int) (val >> 24) & 0xFF;
+                val += inc;
+            }
+            long divInc = ((0xFFL << 24) + m / 2) / m;
+            for (int c = 0; c < 256; c++) {
+                int blended = (m == 0xFF) ? c : Math.min((int) (((1L << 23) + multiplied[c] * divInc) >> 24), 0xFF);
+                BLENDED[(m << 8) | c] = (byte) blended;
+                BLENDED_PREMULTIPLIED[(m << 8) | c] = PREMULTIPLIED[(m << 8) | blended];
+            }
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS (NONE, STATIC METHODS ONLY)
+    //--------------------------------------------------------------------------
+    private Effects() {
+    }
+
+    //--------------------------------------------------------------------------
+    // B - ESSENTIAL STATIC METHODS
+    //--------------------------------------------------------------------------
+    // B0 - Multiply color with it's alpha, pixel becomes opaque (transparent ones are left alone)
+    public static void premultiply(int[] argb, int w, int h) {
+        final int length = w * h;
+        for (int i = 0; i < length; i++) {
+            int pixel = argb[i];
+            int a = pixel >>> 24;
+            if (a > 0) { // this if is in order to not ruin the borders around the chars
+                int row = a << 8;
+                argb[i] = 0xFF000000
+                        | ((PREMULTIPLIED[row | ((pixel >> 16) & 0xFF)] & 0xFF) << 16)
+                        | ((PREMULTIPLIED[row | ((pixel >> 8) & 0xFF)] & 0xFF) << 8)
+                        | (PREMULTIPLIED[row | (pixel & 0xFF)] & 0xFF);
+            }
+        }
+    }
+
+    // B1 - Alpha channel of the pixels, one byte per pixel
+    public static byte[] alpha(int[] argb, int w, int h) {
+        final int length = w * h;
+        byte[] alpha = new byte[length];
+        for (int i = 0; i < length; i++) {
+            alpha[i] = (byte) (argb[i] >>> 24);
+        }
+        return alpha;
+    }
+
+    // B2 - Alpha of the char of the given coverage (new array), premultiplied char is opaque wherever it's covered
+    public static byte[] alpha(byte[] coverage, boolean premultiplied) {
+        byte[] alpha = coverage.clone();
+        if (premultiplied) {
+            for (int i = 0; i < alpha.length; i++) {
+                if (alpha[i] != 0) {
+                    alpha[i] = (byte) 0xFF;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    // B3 - Put the mask over the alpha (alters it), pixels of the mask become opaque
+    public static void cover(byte[] alpha, byte[] mask) {
+        for (int i = 0; i < alpha.length; i++) {
+            if (mask[i] != 0) {
+                alpha[i] = (byte) 0xFF;
+            }
+        }
+    }
+
+    // B4 - Summed area table of the alpha with borders replicated by the offset,
+    // table has (w + 2 * offset + 1) x (h + 2 * offset + 1) elements, first row and column are zeros.
+    // Sums may overflow int, but difference of any four of them is exact (window sums are small)
+    public static int[] summedAreaTable(byte[] alpha, int w, int h, int offset) {
+        final int sw = w + 2 * offset + 1;
+        final int sh = h + 2 * offset + 1;
+        int[] sat = new int[sw * sh];
+        for (int sy = 1; sy < sh; sy++) {
+            int py = Math.min(Math.max(sy - 1 - offset, 0), h - 1);
+            int row = py * w;
+            int rowSum = 0;
+            int dst = sy * sw;
+            int src = dst - sw;
+            for (int sx = 1; sx < sw; sx++) {
+                int px = Math.min(Math.max(sx - 1 - offset, 0), w - 1);
+                rowSum += alpha[row + px] & 0xFF;
+                sat[dst + sx] = sat[src + sx] + rowSum;
+            }
+        }
+        return sat;
+    }
+
+    // summed area table of the alpha channel of the pixels
+    public static int[] alphaSummedAreaTable(int[] argb, int w, int h, int offset) {
+        return summedAreaTable(alpha(argb, w, h), w, h, offset);
+    }
+
+    // B5 - Outline mask, transparent pixel becomes outline (0xFF) if average alpha of it's (2 * width + 1)^2
+    // neighbourhood is non-zero, same as with ColorSample.getSample but O(1) per pixel
+    public static byte[] outlineMask(byte[] alpha, int w, int h, int width) {
+        final int len = 2 * width + 1;
+        final int threshold = len * len; // integer average is non-zero from this sum onwards
+        final int sw = w + 2 * width + 1;
+        int[] sat = summedAreaTable(alpha, w, h, width);
+        byte[] mask = new byte[w * h];
+        for (int py = 0; py < h; py++) {
+            int top = py * sw;
+            int bottom = (py + len) * sw;
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                if (alpha[row + px] == 0) {
+                    int sum = sat[bottom + px + len] - sat[bottom + px] - sat[top + px + len] + sat[top + px];
+                    if (sum >= threshold) {
+                        mask[row + px] = (byte) 0xFF;
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    // outline of the pixels in the outline color
+    public static void outline(int[] argb, int w, int h, int width, int outlineRGB) {
+        byte[] mask = outlineMask(alpha(argb, w, h), w, h, width);
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] != 0) {
+                argb[i] = outlineRGB;
+            }
+        }
+    }
+
+    // B6 - Normalized Gaussian kernel (2 * radius + 1 taps) in fixed point, taps sum up to 1 << KERNEL_BITS,
+    // for radius one it's close to the kernel of ColorSample.getGaussianBlurSample (see shadowMask)
+    public static int[] gaussianKernel(int radius) {
+        int[] kernel = new int[2 * radius + 1];
+        double sigma = Math.max(radius, 1) * SHADOW_SIGMA;
+        double[] weights = new double[kernel.length];
+        double total = 0.0;
+        for (int i = -radius; i <= radius; i++) {
+            weights[i + radius] = Math.exp(-(i * i) / (2.0 * sigma * sigma));
+            total += weights[i + radius];
+        }
+        int sum = 0;
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] = (int) Math.round(weights[i] / total * (1 << KERNEL_BITS));
+            sum += kernel[i];
+        }
+        kernel[radius] += (1 << KERNEL_BITS) - sum; // rounding leftover goes to the center
+        return kernel;
+    }
+
+    // B7 - Separable Gaussian blur of the alpha (borders replicated),
+    // result is one alpha (0-255) per pixel
+    public static int[] blurAlpha(byte[] alpha, int w, int h, int radius) {
+        int[] kernel = gaussianKernel(radius);
+        int[] horizontal = new int[w * h];
+        for (int py = 0; py < h; py++) {
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                int sum = 0;
+                for (int k = -radius; k <= radius; k++) {
+                    int sx = Math.min(Math.max(px + k, 0), w - 1);
+                    sum += (alpha[row + sx] & 0xFF) * kernel[k + radius];
+                }
+                horizontal[row + px] = sum;
+            }
+        }
+        int[] blurred = new int[w * h];
+        final int round = 1 << (2 * KERNEL_BITS - 1);
+        for (int py = 0; py < h; py++) {
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                int sum = 0;
+                for (int k = -radius; k <= radius; k++) {
+                    int sy = Math.min(Math.max(py + k, 0), h - 1);
+                    sum += horizontal[sy * w + px] * kernel[k + radius];
+                }
+                blurred[row + px] = (sum + round) >>> (2 * KERNEL_BITS);
+            }
+        }
+        return blurred;
+    }
+
+    // blur of the alpha channel of the pixels
+    public static int[] blurAlpha(int[] argb, int w, int h, int radius) {
+        return blurAlpha(alpha(argb, w, h), w, h, radius);
+    }
+
+    // blur of radius one with the float taps of ColorSample.getGaussianBlurSample, summed in the same order
+    // and truncated after each sum (borders replicated)
+    private static int[] blurAlphaFloat(byte[] alpha, int w, int h) {
+        int[] blurred = new int[w * h];
+        for (int py = 0; py < h; py++) {
+            int up = Math.max(py - 1, 0) * w;
+            int row = py * w;
+            int down = Math.min(py + 1, h - 1) * w;
+            for (int px = 0; px < w; px++) {
+                int left = Math.max(px - 1, 0);
+                int right = Math.min(px + 1, w - 1);
+                int a = 0;
+                a += DIAGONAL_TAP * ((alpha[up + left] & 0xFF) + (alpha[up + right] & 0xFF)
+                        + (alpha[down + left] & 0xFF) + (alpha[down + right] & 0xFF));
+                a += CENTER_TAP * (alpha[row + px] & 0xFF);
+                a += SIDE_TAP * ((alpha[up + px] & 0xFF) + (alpha[row + left] & 0xFF)
+                        + (alpha[down + px] & 0xFF) + (alpha[row + right] & 0xFF));
+                blurred[row + px] = a;
+            }
+        }
+        return blurred;
+    }
+
+    // offset of the shadow along one axis (component is cosine or sine of the angle), rounded in floats
+    // as it's always been, so half a pixel counts (30 degrees still moves the shadow down)
+    public static int shadowOffset(int distance, double component) {
+        return Math.round((float) (distance * component));
+    }
+
+    // shadow of radius one, the same as it's always been, destination is clamped to the image
+    // (shadow which doesn't fit goes along it's border) and the first pixel there, column by column, wins
+    private static byte[] legacyShadowMask(byte[] alpha, int w, int h, int dx, int dy) {
+        int[] blurred = blurAlphaFloat(alpha, w, h);
+        byte[] mask = new byte[w * h];
+        for (int px = 0; px < w; px++) {
+            int tx = Math.min(Math.max(px + dx, 0), w - 1);
+            for (int py = 0; py < h; py++) {
+                int a = blurred[py * w + px];
+                // lonely opaque pixel doesn't cast the shadow (prevents too many wrong pixels)
+                if (a / 255.0f >= CENTER_TAP) {
+                    int dst = Math.min(Math.max(py + dy, 0), h - 1) * w + tx;
+                    if (alpha[dst] == 0 && mask[dst] == 0) {
+                        mask[dst] = (byte) a;
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    // B8 - Drop shadow mask, blurred alpha is moved by distance in direction of the angle (clockwise degrees)
+    // and it's put under transparent pixels, mask holds the blurred alpha (zero where there's no shadow)
+    public static byte[] shadowMask(byte[] alpha, int w, int h, int angle, int distance, int radius) {
+        final int dx = shadowOffset(distance, Math.cos(Math.toRadians(angle)));
+        final int dy = shadowOffset(distance, Math.sin(Math.toRadians(angle)));
+        if (radius == 1) {
+            return legacyShadowMask(alpha, w, h, dx, dy);
+        }
+        int[] blurred = blurAlpha(alpha, w, h, radius);
+        // lonely opaque pixel doesn't cast the shadow (prevents too many wrong pixels)
+        int[] kernel = gaussianKernel(radius);
+        int threshold = (radius == 0) ? 1
+                : ((0xFF * kernel[radius] * kernel[radius] + (1 << (2 * KERNEL_BITS - 1))) >>> (2 * KERNEL_BITS)) + 1;
+        byte[] mask = new byte[w * h];
+        // single pass, destination pixel takes the alpha from it's source pixel
+        for (int py = Math.max(dy, 0); py < Math.min(h + dy, h); py++) {
+            int row = py * w;
+            int srcRow = (py - dy) * w - dx;
+            for (int px = Math.max(dx, 0); px < Math.min(w + dx, w); px++) {
+                if (alpha[row + px] == 0) {
+                    int a = blurred[srcRow + px];
+                    if (a >= threshold) {
+                        mask[row + px] = (byte) a;
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    // shades of the shadow (or glow) color for each of the blurred alpha values, shade is square root of the alpha
+    public static int[] shades(int shadowRGB) {
+        int[] shades = new int[256];
+        final int red = (shadowRGB >> 16) & 0xFF;
+        final int green = (shadowRGB >> 8) & 0xFF;
+        final int blue = shadowRGB & 0xFF;
+        for (int a = 1; a < shades.length; a++) {
+            double alphaSqrt = Math.sqrt(a / 255.0);
+            shades[a] = 0xFF000000
+                    | ((int) (alphaSqrt * red + 0.5) << 16)
+                    | ((int) (alphaSqrt * green + 0.5) << 8)
+                    | (int) (alphaSqrt * blue + 0.5);
+        }
+        return shades;
+    }
+
+    // drop shadow of the pixels in the shades of the shadow color
+    public static void shadow(int[] argb, int w, int h, int angle, int distance, int radius, int shadowRGB) {
+        byte[] mask = shadowMask(alpha(argb, w, h), w, h, angle, distance, radius);
+        int[] shades = shades(shadowRGB);
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] != 0) {
+                argb[i] = shades[mask[i] & 0xFF];
+            }
+        }
+    }
+
+    // color of the effects at the pixel, outline goes over the glow and the glow goes over the shadow (zero is none)
+    private static int effectRGB(int i, byte[] outline, int outlineRGB, byte[] glow, int[] glowShades, byte[] shadow, int[] shadowShades) {
+        if (outline != null && outline[i] != 0) {
+            return outlineRGB;
+        } else if (glow != null && glow[i] != 0) {
+            return glowShades[glow[i] & 0xFF];
+        } else if (shadow != null && shadow[i] != 0) {
+            return shadowShades[shadow[i] & 0xFF];
+        }
+        return 0;
+    }
+
+    // color of the char pixel of the coverage, the same one as colorized (B9)
+    public static int blend(int rgb, int m, boolean premultiplied) {
+        final byte[] blended = premultiplied ? BLENDED_PREMULTIPLIED : BLENDED;
+        final int rowM = m << 8;
+        return ((premultiplied ? 0xFF : m) << 24)
+                | ((blended[rowM | ((rgb >> 16) & 0xFF)] & 0xFF) << 16)
+                | ((blended[rowM | ((rgb >> 8) & 0xFF)] & 0xFF) << 8)
+                | (blended[rowM | (rgb & 0xFF)] & 0xFF);
+    }
+
+    // B9 - Colorize the masks into the ARGB pixels (of the mask size), char takes the color of it's row
+    // the same as Java2D would draw it with the coverage (premultiplied and opaque, like with premultiply,
+    // or with the coverage as alpha), outline and the shades of the glow and the shadow go under the char
+    public static void colorize(GlyphMask mask, int[] rowColors, boolean premultiplied, int outlineRGB, int glowRGB, int shadowRGB, int[] argb) {
+        final int w = mask.getWidth();
+        final int h = mask.getHeight();
+        final byte[] coverage = mask.getCoverage();
+        final byte[] outline = mask.getOutline();
+        final byte[] glow = mask.getGlow();
+        final byte[] shadow = mask.getShadow();
+        final byte[] blended = premultiplied ? BLENDED_PREMULTIPLIED : BLENDED;
+        int[] glowShades = (glow != null) ? shades(glowRGB) : null;
+        int[] shadowShades = (shadow != null) ? shades(shadowRGB) : null;
+        for (int py = 0; py < h; py++) {
+            int color = rowColors[py];
+            int red = (color >> 16) & 0xFF;
+            int green = (color >> 8) & 0xFF;
+            int blue = color & 0xFF;
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                int i = row + px;
+                int m = coverage[i] & 0xFF;
+                if (m != 0) {
+                    int rowM = m << 8;
+                    argb[i] = ((premultiplied ? 0xFF : m) << 24)
+                            | ((blended[rowM | red] & 0xFF) << 16)
+                            | ((blended[rowM | green] & 0xFF) << 8)
+                            | (blended[rowM | blue] & 0xFF);
+                } else {
+                    argb[i] = effectRGB(i, outline, outlineRGB, glow, glowShades, shadow, shadowShades);
+                }
+            }
+        }
+    }
+
+    // B10 - Colorize the 1-bit masks into the ARGB pixels (of the mask size, all transparent), colors go only
+    // to the set bits (word by word), char takes the same color as the opaque coverage would (B9)
+    public static void colorizeBits(GlyphMask mask, int fgRGB, int outlineRGB, int shadowRGB, int[] argb) {
+        final int w = mask.getWidth();
+        final int h = mask.getHeight();
+        final BitMask coverage = mask.getCoverageBits();
+        final BitMask outline = mask.getOutlineBits();
+        final BitMask shadowBits = mask.getShadowBits();
+        final byte[] shadow = mask.getShadow();
+        final int stride = coverage.getStride();
+        final int charRGB = blend(fgRGB, 0xFF, false);
+        final int hardShadowRGB = 0xFF000000 | (shadowRGB & 0xFFFFFF); // shade of the full alpha
+        for (int py = 0; py < h; py++) {
+            int row = py * stride;
+            for (int k = 0; k < stride; k++) {
+                long c = coverage.getWords()[row + k];
+                long o = (outline != null) ? outline.getWords()[row + k] & ~c : 0L;
+                long sh = (shadowBits != null) ? shadowBits.getWords()[row + k] & ~(c | o) : 0L;
+                long any = c | o | sh;
+                int first = py * w + (k << 6);
+                while (any != 0L) {
+                    int bit = Long.numberOfLeadingZeros(any);
+                    long b = Long.MIN_VALUE >>> bit;
+                    argb[first + bit] = ((c & b) != 0L) ? charRGB : ((o & b) != 0L) ? outlineRGB : hardShadowRGB;
+                    any &= ~b;
+                }
+            }
+        }
+        // soft shadow of the bits (blurred alpha) goes under what's left
+        if (shadow != null) {
+            int[] shades = shades(shadowRGB);
+            for (int i = 0; i < argb.length; i++) {
+                if (argb[i] == 0 && shadow[i] != 0) {
+                    argb[i] = shades[shadow[i] & 0xFF];
+                }
+            }
+        }
+    }
+
+    // B11 - Colorize the masks straight into the palette indices (of the mask size, all transparent),
+    // the same indices as the quantized colors of B9 would have, but with no ARGB pixels in between
+    public static void colorizeIndexed(GlyphMask mask, int[] rowColors, boolean premultiplied, IndexedColors colors, byte[] indices) {
+        final int w = mask.getWidth();
+        final int h = mask.getHeight();
+        final byte[] coverage = mask.getCoverage();
+        final byte[] outline = mask.getOutline();
+        final byte[] glow = mask.getGlow();
+        final byte[] shadow = mask.getShadow();
+        final byte[] charIndices = colors.getCharIndices();
+        final byte outlineIndex = colors.getOutlineIndex();
+        final byte[] glowIndices = colors.getGlowIndices();
+        final byte[] shadowIndices = colors.getShadowIndices();
+        final Quantizer quantizer = colors.getQuantizer();
+        for (int py = 0; py < h; py++) {
+            int color = rowColors[py];
+            // gradient rows are indexed on the go, coverage repeats a lot in the row
+            int lastM = 0;
+            byte lastIndex = (byte) Quantizer.TRANSPARENT_INDEX;
+            int row = py * w;
+            for (int px = 0; px < w; px++) {
+                int i = row + px;
+                int m = coverage[i] & 0xFF;
+                if (m != 0) {
+                    if (charIndices != null) {
+                        indices[i] = charIndices[m];
+                    } else {
+                        if (m != lastM) {
+                            lastM = m;
+                            lastIndex = (byte) quantizer.index(blend(color, m, premultiplied));
+                        }
+                        indices[i] = lastIndex;
+                    }
+                } else if (outline != null && outline[i] != 0) {
+                    indices[i] = outlineIndex;
+                } else if (glow != null && glow[i] != 0) {
+                    indices[i] = glowIndices[glow[i] & 0xFF];
+                } else if (shadow != null && shadow[i] != 0) {
+                    indices[i] = shadowIndices[shadow[i] & 0xFF];
+                }
+            }
+        }
+    }
+
+    // B12 - Colorize the 1-bit masks straight into the palette indices (of the mask size, all transparent),
+    // the same indices as the quantized colors of B10 would have
+    public static void colorizeBitsIndexed(GlyphMask mask, IndexedColors colors, byte[] indices) {
+        final int w = mask.getWidth();
+        final int h = mask.getHeight();
+        final BitMask coverage = mask.getCoverageBits();
+        final BitMask outline = mask.getOutlineBits();
+        final BitMask shadowBits = mask.getShadowBits();
+        final byte[] shadow = mask.getShadow();
+        final int stride = coverage.getStride();
+        final byte charIndex = colors.getCharIndices()[0xFF];
+        final byte outlineIndex = colors.getOutlineIndex();
+        final byte[] shadowIndices = colors.getShadowIndices();
+        for (int py = 0; py < h; py++) {
+            int row = py * stride;
+            for (int k = 0; k < stride; k++) {
+                long c = coverage.getWords()[row + k];
+                long o = (outline != null) ? outline.getWords()[row + k] & ~c : 0L;
+                long sh = (shadowBits != null) ? shadowBits.getWords()[row + k] & ~(c | o) : 0L;
+                long any = c | o | sh;
+                int first = py * w + (k << 6);
+                while (any != 0L) {
+                    int bit = Long.numberOfLeadingZeros(any);
+                    long b = Long.MIN_VALUE >>> bit;
+                    indices[first + bit] = ((c & b) != 0L) ? charIndex : ((o & b) != 0L) ? outlineIndex : shadowIndices[0xFF];
+                    any &= ~b;
+                }
+            }
+        }
+        // soft shadow of the bits goes under what's left (opaque colors are never transparent index)
+        if (shadow != null) {
+            for (int i = 0; i < indices.length; i++) {
+                if (indices[i] == Quantizer.TRANSPARENT_INDEX && shadow[i] != 0) {
+                    indices[i] = shadowIndices[shadow[i] & 0xFF];
+                }
+            }
+        }
+    }
+
+    // B13 - Effects of the masks under the transparent pixels of the drawn char (char of any colors)
+    public static void paintEffects(GlyphMask mask, int outlineRGB, int glowRGB, int shadowRGB, int[] argb) {
+        final byte[] outline = mask.getOutline();
+        final byte[] glow = mask.getGlow();
+        final byte[] shadow = mask.getShadow();
+        int[] glowShades = (glow != null) ? shades(glowRGB) : null;
+        int[] shadowShades = (shadow != null) ? shades(shadowRGB) : null;
+        for (int i = 0; i < argb.length; i++) {
+            if ((argb[i] & 0xFF000000) == 0) {
+                int effect = effectRGB(i, outline, outlineRGB, glow, glowShades, shadow, shadowShades);
+                if (effect != 0) {
+                    argb[i] = effect;
+                }
+            }
+        }
+    }
+
+}
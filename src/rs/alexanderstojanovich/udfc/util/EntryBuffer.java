@@ -0,0 +1,73 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class EntryBuffer extends ByteArrayOutputStream { // data of one archive entry, reused from entry to entry
+
+    private final CRC32 crc = new CRC32();
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public EntryBuffer() {
+        super(8192);
+    }
+
+    public EntryBuffer(int size) {
+        super(size);
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // CRC32 of the data, computed in place (without copying the data out)
+    public synchronized long crc() {
+        crc.reset();
+        crc.update(buf, 0, count);
+        return crc.getValue();
+    }
+
+    // read all the data from the input stream straight into the buffer
+    public synchronized void readFrom(InputStream in) throws IOException {
+        int n;
+        do {
+            if (count == buf.length) {
+                buf = Arrays.copyOf(buf, 2 * buf.length);
+            }
+            n = in.read(buf, count, buf.length - count);
+            if (n > 0) {
+                count += n;
+            }
+        } while (n >= 0);
+    }
+
+    // is there any data (reset empties the buffer but keeps it's capacity)
+    public synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+}
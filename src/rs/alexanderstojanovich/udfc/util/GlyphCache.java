@@ -0,0 +1,200 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class GlyphCache { // rendered char images and glyph masks, least recently used go first
+
+    // default capacity, 64 MB of raster data
+    public static final long DEFAULT_CAPACITY = 64L << 20;
+
+    // maximum amount of raster bytes held in the cache
+    private final long capacity;
+    // current amount of raster bytes held in the cache
+    private long size = 0L;
+    // access ordered map of images and masks (keys of the masks have their own signatures),
+    // eldest entry is the least recently used one
+    private final LinkedHashMap<Key, Object> images = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // key of the cached image, render settings signature and the code point
+    public static class Key {
+
+        private final String settings;
+        private final int codePoint;
+
+        public Key(String settings, int codePoint) {
+            this.settings = settings;
+            this.codePoint = codePoint;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * settings.hashCode() + codePoint;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return codePoint == other.codePoint && settings.equals(other.settings);
+        }
+
+        public String getSettings() {
+            return settings;
+        }
+
+        public int getCodePoint() {
+            return codePoint;
+        }
+
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public GlyphCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public GlyphCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // get cached image (or null if there is none),
+    // image is shared so it must not be altered by the caller
+    public BufferedImage get(Key key) {
+        return (BufferedImage) lookup(key);
+    }
+
+    // put the image into the cache, evicting least recently used ones if it's full
+    public void put(Key key, BufferedImage image) {
+        store(key, image);
+    }
+
+    // get cached mask (or null if there is none), mask is shared as well
+    public GlyphMask getMask(Key key) {
+        return (GlyphMask) lookup(key);
+    }
+
+    // put the mask into the cache (same capacity as images)
+    public void putMask(Key key, GlyphMask mask) {
+        store(key, mask);
+    }
+
+    private synchronized Object lookup(Key key) {
+        Object value = images.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    private synchronized void store(Key key, Object value) {
+        long valueSize = sizeOf(value);
+        if (valueSize > capacity) {
+            return;
+        }
+        Object old = images.put(key, value);
+        if (old != null) {
+            size -= sizeOf(old);
+        }
+        size += valueSize;
+        Iterator<Map.Entry<Key, Object>> it = images.entrySet().iterator();
+        while (size > capacity && it.hasNext()) {
+            Map.Entry<Key, Object> eldest = it.next();
+            size -= sizeOf(eldest.getValue());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // remove all the images and masks (counters are kept)
+    public synchronized void clear() {
+        images.clear();
+        size = 0L;
+    }
+
+    // raster size of the image in bytes
+    public static long sizeOf(BufferedImage image) {
+        DataBuffer db = image.getRaster().getDataBuffer();
+        return (long) db.getSize() * db.getNumBanks() * DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+    }
+
+    private static long sizeOf(Object value) {
+        return (value instanceof GlyphMask) ? ((GlyphMask) value).getSize() : sizeOf((BufferedImage) value);
+    }
+
+    @Override
+    public String toString() {
+        long total = hits.get() + misses.get();
+        return String.format("GlyphCache{entries=%d, size=%d/%d bytes, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d}",
+                getEntries(), getSize(), capacity, hits.get(), misses.get(),
+                (total == 0) ? 0.0 : 100.0 * hits.get() / total, evictions.get());
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntries() {
+        return images.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+}
@@ -0,0 +1,180 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class GlyphMask { // coverage of the char and the masks of it's effects (no colors), colorized into the char image
+
+    private final int width;
+    private final int height;
+    // coverage of the char (0-255) per pixel, antialiased or not (null for 1-bit masks)
+    private final byte[] coverage;
+    // 1-bit coverage of the hard-edged char, it's outline and hard shadow (null for the byte masks)
+    private final BitMask coverageBits;
+    private BitMask outlineBits = null;
+    private BitMask shadowBits = null;
+    // gradient of the char goes from y1 to y2 (user space) and the char is moved by translateY
+    private final float gradientY1;
+    private final float gradientY2;
+    private final double translateY;
+    // squared distances to the char (distance field), null if the effects don't use it
+    private int[] distances = null;
+    // outline pixels (non-zero), alpha of the glow and blurred alpha of the shadow (zero is no glow or shadow),
+    // null if there's no such effect
+    private byte[] outline = null;
+    private byte[] glow = null;
+    private byte[] shadow = null;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public GlyphMask(int width, int height, byte[] coverage, float gradientY1, float gradientY2, double translateY) {
+        this.width = width;
+        this.height = height;
+        this.coverage = coverage;
+        this.coverageBits = null;
+        this.gradientY1 = gradientY1;
+        this.gradientY2 = gradientY2;
+        this.translateY = translateY;
+    }
+
+    // 1-bit mask of the hard-edged char of one color (no gradient)
+    public GlyphMask(BitMask coverageBits) {
+        this.width = coverageBits.getWidth();
+        this.height = coverageBits.getHeight();
+        this.coverage = null;
+        this.coverageBits = coverageBits;
+        this.gradientY1 = 0.0f;
+        this.gradientY2 = 0.0f;
+        this.translateY = 0.0;
+    }
+
+    // mask of the same char (and the distance field), without the effects
+    public GlyphMask(GlyphMask field) {
+        this(field.width, field.height, field.coverage, field.gradientY1, field.gradientY2, field.translateY);
+        this.distances = field.distances;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // is it 1-bit mask (bits instead of the coverage)
+    public boolean isBinary() {
+        return coverageBits != null;
+    }
+
+    // size of all the masks in bytes
+    public long getSize() {
+        return ((coverage != null) ? coverage.length : 0)
+                + ((coverageBits != null) ? coverageBits.getSize() : 0)
+                + ((outlineBits != null) ? outlineBits.getSize() : 0)
+                + ((shadowBits != null) ? shadowBits.getSize() : 0)
+                + ((distances != null) ? 4L * distances.length : 0)
+                + ((outline != null) ? outline.length : 0)
+                + ((glow != null) ? glow.length : 0)
+                + ((shadow != null) ? shadow.length : 0);
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS AND SETTERS
+    //--------------------------------------------------------------------------
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public byte[] getCoverage() {
+        return coverage;
+    }
+
+    public BitMask getCoverageBits() {
+        return coverageBits;
+    }
+
+    public BitMask getOutlineBits() {
+        return outlineBits;
+    }
+
+    // set before the mask is shared (cached)
+    public void setOutlineBits(BitMask outlineBits) {
+        this.outlineBits = outlineBits;
+    }
+
+    public BitMask getShadowBits() {
+        return shadowBits;
+    }
+
+    // set before the mask is shared (cached)
+    public void setShadowBits(BitMask shadowBits) {
+        this.shadowBits = shadowBits;
+    }
+
+    public float getGradientY1() {
+        return gradientY1;
+    }
+
+    public float getGradientY2() {
+        return gradientY2;
+    }
+
+    public double getTranslateY() {
+        return translateY;
+    }
+
+    public int[] getDistances() {
+        return distances;
+    }
+
+    // set before the mask is shared (cached)
+    public void setDistances(int[] distances) {
+        this.distances = distances;
+    }
+
+    public byte[] getOutline() {
+        return outline;
+    }
+
+    // set before the mask is shared (cached)
+    public void setOutline(byte[] outline) {
+        this.outline = outline;
+    }
+
+    public byte[] getGlow() {
+        return glow;
+    }
+
+    // set before the mask is shared (cached)
+    public void setGlow(byte[] glow) {
+        this.glow = glow;
+    }
+
+    public byte[] getShadow() {
+        return shadow;
+    }
+
+    // set before the mask is shared (cached)
+    public void setShadow(byte[] shadow) {
+        this.shadow = shadow;
+    }
+
+}
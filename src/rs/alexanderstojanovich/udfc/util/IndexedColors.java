@@ -0,0 +1,95 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class IndexedColors { // palette indices of the char and it's effects, resolved once for the settings (of the job)
+
+    // signature of the settings which these colors are for
+    private final String signature;
+    private final Quantizer quantizer;
+    // index of the char color for each coverage, null for gradient (row colors are indexed on the go)
+    private final byte[] charIndices;
+    private final byte outlineIndex;
+    // index of the glow and the shadow shade for each of their alpha values
+    private final byte[] glowIndices;
+    private final byte[] shadowIndices;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    // char color (fgRGB) is the one of all the rows, or it's the gradient if it's null
+    public IndexedColors(String signature, Quantizer quantizer, Integer fgRGB, boolean premultiplied,
+            int outlineRGB, int glowRGB, int shadowRGB) {
+        this.signature = signature;
+        this.quantizer = quantizer;
+        if (fgRGB != null) {
+            this.charIndices = new byte[256];
+            for (int m = 1; m < charIndices.length; m++) {
+                charIndices[m] = (byte) quantizer.index(Effects.blend(fgRGB, m, premultiplied));
+            }
+        } else {
+            this.charIndices = null;
+        }
+        this.outlineIndex = (byte) quantizer.index(outlineRGB);
+        this.glowIndices = indicesOf(quantizer, Effects.shades(glowRGB));
+        this.shadowIndices = indicesOf(quantizer, Effects.shades(shadowRGB));
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // indices of the shades (first one, zero alpha, is transparent)
+    private static byte[] indicesOf(Quantizer quantizer, int[] shades) {
+        byte[] indices = new byte[shades.length];
+        for (int a = 1; a < shades.length; a++) {
+            indices[a] = (byte) quantizer.index(shades[a]);
+        }
+        return indices;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public String getSignature() {
+        return signature;
+    }
+
+    public Quantizer getQuantizer() {
+        return quantizer;
+    }
+
+    public byte[] getCharIndices() {
+        return charIndices;
+    }
+
+    public byte getOutlineIndex() {
+        return outlineIndex;
+    }
+
+    public byte[] getGlowIndices() {
+        return glowIndices;
+    }
+
+    public byte[] getShadowIndices() {
+        return shadowIndices;
+    }
+
+}
@@ -0,0 +1,151 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class Manifest { // what's inside the pk3, settings hash and CRC32 of each glyph entry
+
+    // name of the manifest entry in the pk3 (outside of the filter dir, so GZDoom ignores it)
+    public static final String ENTRY_NAME = "udfc/manifest.txt";
+
+    // hash of the settings which made the glyphs
+    private final String settingsHash;
+    // dir entry holding the glyphs
+    private final String dirEntryName;
+    // CRC32 of each glyph entry by it's code point
+    private final Map<Integer, Long> crcs = new TreeMap<>();
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public Manifest(String settingsHash, String dirEntryName) {
+        this.settingsHash = settingsHash;
+        this.dirEntryName = dirEntryName;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // SHA-1 of the settings (hex)
+    public static String hash(String settings) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest(settings.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform has SHA-1
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // read the manifest, null if it's not a manifest
+    public static Manifest read(InputStream in) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String settingsHash = null;
+        String dirEntryName = null;
+        Map<Integer, Long> crcs = new TreeMap<>();
+        String line;
+        while ((line = br.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("settings=")) {
+                settingsHash = line.substring("settings=".length());
+            } else if (line.startsWith("dir=")) {
+                dirEntryName = line.substring("dir=".length());
+            } else {
+                String[] things = line.split(" ");
+                if (things.length != 2) {
+                    return null;
+                }
+                try {
+                    crcs.put(Integer.parseInt(things[0], 16), Long.parseLong(things[1], 16));
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+        }
+        if (settingsHash == null || dirEntryName == null) {
+            return null;
+        }
+        Manifest manifest = new Manifest(settingsHash, dirEntryName);
+        manifest.crcs.putAll(crcs);
+        return manifest;
+    }
+
+    // write the manifest (stream is left open)
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("# Unicode Doom Font Creator manifest\n");
+        writer.write("settings=" + settingsHash + "\n");
+        writer.write("dir=" + dirEntryName + "\n");
+        for (Map.Entry<Integer, Long> e : crcs.entrySet()) {
+            writer.write(String.format("%04X %08x\n", e.getKey(), e.getValue()));
+        }
+        writer.flush();
+    }
+
+    // remember CRC32 of the glyph entry
+    public synchronized void put(int codePoint, long crc) {
+        crcs.put(codePoint, crc);
+    }
+
+    // CRC32 of the glyph entry, null if there is no such glyph
+    public synchronized Long getCrc(int codePoint) {
+        return crcs.get(codePoint);
+    }
+
+    // were the glyphs made by same settings into the same dir
+    public boolean matches(String settingsHash, String dirEntryName) {
+        return this.settingsHash.equals(settingsHash) && this.dirEntryName.equals(dirEntryName);
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public String getSettingsHash() {
+        return settingsHash;
+    }
+
+    public String getDirEntryName() {
+        return dirEntryName;
+    }
+
+    public synchronized int getGlyphs() {
+        return crcs.size();
+    }
+
+}
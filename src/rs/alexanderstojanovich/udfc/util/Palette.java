@@ -17,65 +17,125 @@
 package rs.alexanderstojanovich.udfc.util;
 
 import java.awt.Color;
+import java.awt.image.IndexColorModel;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import rs.alexanderstojanovich.udfc.gui.GUI;
 
 /**
  *
  * @author Alexander Stojanovich <coas91@rocketmail.com>
  */
-public class Palette {
+public final class Palette { // immutable, loaded once per name and shared by everyone (even concurrent jobs)
 
+    // palette files are among the resources (same dir as the GUI ones)
+    private static final String RESOURCES_DIR = "/rs/alexanderstojanovich/udfc/res/";
+
+    // palette choices (first one means no palette, ARGB glyphs)
+    public static final String NONE = "None";
+    public static final String[] NAMES = {NONE, "Doom", "Heretic", "Hexen", "6-bit RGB", "8-bit RGB"};
+
+    // palettes loaded so far, by name
+    private static final Map<String, Palette> PALETTES = new ConcurrentHashMap<>();
+
+    // name of the palette (one of the choices)
+    private final String name;
     // All colors in the palette, required for an indexed model
-    private static int colors[];
+    private final int[] colors;
     // Color buffer aka color map
-    private static byte colBuff[];
-    // whether or not palette is loaded or not
-    private static boolean loaded = false;
+    private final byte[] colBuff;
+    // quantizer (and shared color model) of the palette
+    private final Quantizer quantizer;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    private Palette(String name, int[] colors, byte[] colBuff, Quantizer quantizer) {
+        this.name = name;
+        this.colors = colors;
+        this.colBuff = colBuff;
+        this.quantizer = quantizer;
+    }
 
     //--------------------------------------------------------------------------
-    // A - STATIC METHODS
-    //--------------------------------------------------------------------------     
+    // B - STATIC METHODS
+    //--------------------------------------------------------------------------
+    // palette with the given name, loaded on the first call, null for "None" (or unknown one)
+    public static Palette forName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return PALETTES.computeIfAbsent(name, Palette::make);
+    }
+
+    // make the palette of the name (null if there's no such one)
+    private static Palette make(String name) {
+        switch (name) {
+            case "Doom":
+                return load(name, "DoomPalette.pal");
+            case "Heretic":
+                return load(name, "HereticPalette.pal");
+            case "Hexen":
+                return load(name, "HexenPalette.pal");
+            case "6-bit RGB":
+                return make6bitRGB(name);
+            case "8-bit RGB":
+                return make8bitRGB(name);
+            default:
+                return null;
+        }
+    }
+
     // load palette with given file name, index 0 - transparent
-    public static void load(String fileName) {
-        loaded = false;
-        InputStream in = Palette.class.getResourceAsStream(GUI.RESOURCES_DIR + fileName);
-        byte[] buff = null;
-        if (in != null) {
-            buff = new byte[768];
-            try {
-                in.read(buff);
-                in.close();
-            } catch (IOException ex) {
-                Logger.getLogger(Palette.class.getName()).log(Level.SEVERE, null, ex);
+    private static Palette load(String name, String fileName) {
+        byte[] buff = new byte[768];
+        try (InputStream in = Palette.class.getResourceAsStream(RESOURCES_DIR + fileName)) {
+            if (in == null) {
+                return null;
+            }
+            int read = 0;
+            while (read < buff.length) {
+                int n = in.read(buff, read, buff.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
             }
+        } catch (IOException ex) {
+            Logger.getLogger(Palette.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
         }
 
-        if (buff != null) {
-            int index = 0;
-            colors = new int[256];
-            colBuff = new byte[1024];
-            for (int i = 0; i < buff.length / 3; i++) {
-                Color col = new Color(buff[i * 3] & 0xFF, buff[i * 3 + 1] & 0xFF, buff[i * 3 + 2] & 0xFF, (i == 0) ? 0 : 0xFF);
-                colors[index] = col.getRGB();
-                colBuff[4 * index] = (byte) col.getRed();
-                colBuff[4 * index + 1] = (byte) col.getGreen();
-                colBuff[4 * index + 2] = (byte) col.getBlue();
-                colBuff[4 * index + 3] = (byte) col.getAlpha();
-                index++;
-            }
-            loaded = true;
+        int index = 0;
+        int[] colors = new int[256];
+        byte[] colBuff = new byte[1024];
+        for (int i = 0; i < buff.length / 3; i++) {
+            Color col = new Color(buff[i * 3] & 0xFF, buff[i * 3 + 1] & 0xFF, buff[i * 3 + 2] & 0xFF, (i == 0) ? 0 : 0xFF);
+            colors[index] = col.getRGB();
+            colBuff[4 * index] = (byte) col.getRed();
+            colBuff[4 * index + 1] = (byte) col.getGreen();
+            colBuff[4 * index + 2] = (byte) col.getBlue();
+            colBuff[4 * index + 3] = (byte) col.getAlpha();
+            index++;
         }
+        return new Palette(name, colors, colBuff, new Quantizer(colors, colBuff));
     }
 
     // generate 6-bit RGB palette (64 colors), index 0 - transparent
-    public static void load6bitRGB() {
-        loaded = false;
-        colors = new int[64];
-        colBuff = new byte[256];
+    private static Palette make6bitRGB(String name) {
+        int[] colors = new int[64];
+        byte[] colBuff = new byte[256];
+        // levels of the cube components, index is red * 16 + green * 4 + blue
+        int[] levels = new int[4];
+        for (int l = 0; l < levels.length; l++) {
+            levels[l] = Math.min(4 * (l << 6) / 3, 0xFF);
+        }
+        int[] red = Quantizer.levelIndex(levels, 16);
+        int[] green = Quantizer.levelIndex(levels, 4);
+        int[] blue = Quantizer.levelIndex(levels, 1);
         int index = 0;
         for (int r = 0; r < 4; r++) {
             for (int g = 0; g < 4; g++) {
@@ -95,14 +155,25 @@ public class Palette {
                 }
             }
         }
-        loaded = true;
+        return new Palette(name, colors, colBuff, new Quantizer(colors, colBuff, red, green, blue));
     }
 
     // generate 8-bit RGB palette (256 colors), index 0 - transparent
-    public static void load8bitRGB() {
-        loaded = false;
-        colors = new int[256];
-        colBuff = new byte[1024];
+    private static Palette make8bitRGB(String name) {
+        int[] colors = new int[256];
+        byte[] colBuff = new byte[1024];
+        // levels of the cube components, index is red * 32 + green * 4 + blue
+        int[] levels8 = new int[8];
+        for (int l = 0; l < levels8.length; l++) {
+            levels8[l] = Math.min(8 * (l << 5) / 7, 0xFF);
+        }
+        int[] levels4 = new int[4];
+        for (int l = 0; l < levels4.length; l++) {
+            levels4[l] = Math.min(4 * (l << 6) / 3, 0xFF);
+        }
+        int[] red = Quantizer.levelIndex(levels8, 32);
+        int[] green = Quantizer.levelIndex(levels8, 4);
+        int[] blue = Quantizer.levelIndex(levels4, 1);
         int index = 0;
         for (int r = 0; r < 8; r++) {
             for (int g = 0; g < 8; g++) {
@@ -122,29 +193,46 @@ public class Palette {
                 }
             }
         }
-        loaded = true;
+        return new Palette(name, colors, colBuff, new Quantizer(colors, colBuff, red, green, blue));
+    }
+
+    // name of the palette, "None" for no palette
+    public static String nameOf(Palette palette) {
+        return (palette != null) ? palette.name : NONE;
     }
 
-    // asynch reset - returns palette into initial state
-    public static void reset() {
-        loaded = false;
-        colors = null;
-        colBuff = null;
+    @Override
+    public String toString() {
+        return name;
     }
 
     //--------------------------------------------------------------------------
-    // B - STATIC GETTERS 
-    //--------------------------------------------------------------------------    
-    public static int[] getColors() {
-        return colors;
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public String getName() {
+        return name;
+    }
+
+    // copy of the colors (ARGB)
+    public int[] getColors() {
+        return colors.clone();
+    }
+
+    // copy of the color buffer (RGBA)
+    public byte[] getColBuff() {
+        return colBuff.clone();
+    }
+
+    public int getSize() {
+        return colors.length;
     }
 
-    public static byte[] getColBuff() {
-        return colBuff;
+    public Quantizer getQuantizer() {
+        return quantizer;
     }
 
-    public static boolean isLoaded() {
-        return loaded;
+    public IndexColorModel getColorModel() {
+        return quantizer.getColorModel();
     }
 
 }
@@ -0,0 +1,313 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ * @param <T> item which goes through the stages
+ */
+public class Pipeline<T> { // stages with their own threads linked by bounded queues
+
+    // one step of the pipeline, alters the item
+    public interface Stage<T> {
+
+        public void process(T item) throws IOException;
+    }
+
+    // item with it's position in the input (needed for ordered output)
+    private static class Slot<T> {
+
+        private final int seq;
+        private final T item;
+
+        public Slot(int seq, T item) {
+            this.seq = seq;
+            this.item = item;
+        }
+    }
+
+    // stage statistics, updated by the stage threads
+    public static class StageStats {
+
+        private final String name;
+        private final int threads;
+        // input queue of the stage
+        private final BlockingQueue<?> queue;
+
+        private final AtomicLong items = new AtomicLong();
+        // time spent processing the items
+        private final AtomicLong busyNanos = new AtomicLong();
+        // time spent waiting for the items from the previous stage (starving)
+        private final AtomicLong waitInNanos = new AtomicLong();
+        // time spent waiting for the space in the next queue (backpressure)
+        private final AtomicLong waitOutNanos = new AtomicLong();
+
+        public StageStats(String name, int threads, BlockingQueue<?> queue) {
+            this.name = name;
+            this.threads = threads;
+            this.queue = queue;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[threads=%d, items=%d, queue=%d, busy=%dms, stallIn=%dms, stallOut=%dms]",
+                    name, threads, items.get(), getQueueDepth(), busyNanos.get() / 1000000L,
+                    waitInNanos.get() / 1000000L, waitOutNanos.get() / 1000000L);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        public long getItems() {
+            return items.get();
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        public long getWaitInNanos() {
+            return waitInNanos.get();
+        }
+
+        public long getWaitOutNanos() {
+            return waitOutNanos.get();
+        }
+
+    }
+
+    // marks the end of the input
+    private final Slot<T> end = new Slot<>(-1, null);
+
+    private final int queueCapacity;
+    private final List<String> names = new ArrayList<>();
+    private final List<Stage<T>> stages = new ArrayList<>();
+    private final List<Integer> threadCounts = new ArrayList<>();
+    // statistics of the current (or last) run
+    private volatile List<StageStats> stats = Collections.emptyList();
+
+    // first failure of any of the stages, pipeline is drained then
+    private volatile Throwable failure;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public Pipeline(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // add stage run by given number of threads, items leave it in any order
+    public Pipeline<T> addStage(String name, int threads, Stage<T> stage) {
+        names.add(name);
+        stages.add(stage);
+        threadCounts.add(Math.max(threads, 1));
+        return this;
+    }
+
+    // run all the items through the stages, sink is called on this thread in the input order.
+    // Stop is polled before feeding each item, items already fed still reach the sink
+    public void run(List<T> items, Stage<T> sink, BooleanSupplier stop) throws IOException, InterruptedException {
+        final int n = stages.size();
+        List<BlockingQueue<Slot<T>>> queues = new ArrayList<>();
+        for (int k = 0; k <= n; k++) {
+            queues.add(new ArrayBlockingQueue<Slot<T>>(queueCapacity));
+        }
+        List<StageStats> runStats = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            runStats.add(new StageStats(names.get(k), threadCounts.get(k), queues.get(k)));
+        }
+        StageStats sinkStats = new StageStats("write", 1, queues.get(n));
+        runStats.add(sinkStats);
+        stats = Collections.unmodifiableList(runStats);
+        failure = null;
+
+        List<Thread> threads = new ArrayList<>();
+        Thread feeder = new Thread(() -> {
+            BlockingQueue<Slot<T>> out = queues.get(0);
+            try {
+                for (int seq = 0; seq < items.size() && failure == null && !stop.getAsBoolean(); seq++) {
+                    out.put(new Slot<>(seq, items.get(seq)));
+                }
+            } catch (InterruptedException | RuntimeException | Error ex) {
+                fail(ex);
+            } finally {
+                // the end is always fed, otherwise the stages (and the sink) wait forever
+                try {
+                    for (int t = 0; t < threadCounts.get(0); t++) {
+                        out.put(end);
+                    }
+                } catch (InterruptedException ex) {
+                    fail(ex);
+                }
+            }
+        }, "Pipeline Feeder");
+        threads.add(feeder);
+        for (int k = 0; k < n; k++) {
+            final int index = k;
+            final AtomicInteger alive = new AtomicInteger(threadCounts.get(k));
+            final int nextThreads = (k + 1 < n) ? threadCounts.get(k + 1) : 1;
+            for (int t = 0; t < threadCounts.get(k); t++) {
+                threads.add(new Thread(() -> {
+                    work(stages.get(index), runStats.get(index), queues.get(index), queues.get(index + 1));
+                    // last thread of the stage passes the end on
+                    if (alive.decrementAndGet() == 0) {
+                        try {
+                            for (int e = 0; e < nextThreads; e++) {
+                                queues.get(index + 1).put(end);
+                            }
+                        } catch (InterruptedException ex) {
+                            fail(ex);
+                        }
+                    }
+                }, "Pipeline " + names.get(k) + " #" + t));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            // write stage, puts the items back into the input order
+            BlockingQueue<Slot<T>> in = queues.get(n);
+            Map<Integer, T> pending = new HashMap<>();
+            int next = 0;
+            while (true) {
+                long waitBegin = System.nanoTime();
+                Slot<T> slot = in.take();
+                sinkStats.waitInNanos.addAndGet(System.nanoTime() - waitBegin);
+                if (slot == end) {
+                    break;
+                }
+                pending.put(slot.seq, slot.item);
+                T item;
+                while ((item = pending.remove(next)) != null) {
+                    if (failure == null) {
+                        long begin = System.nanoTime();
+                        try {
+                            sink.process(item);
+                        } catch (IOException | RuntimeException ex) {
+                            fail(ex);
+                        }
+                        sinkStats.busyNanos.addAndGet(System.nanoTime() - begin);
+                        sinkStats.items.incrementAndGet();
+                    }
+                    next++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            fail(ex);
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            throw ex;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Throwable ex = failure;
+        if (ex instanceof IOException) {
+            throw (IOException) ex;
+        } else if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        } else if (ex instanceof InterruptedException) {
+            throw (InterruptedException) ex;
+        } else if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+    }
+
+    // loop of one stage thread, after a failure items are just passed on (draining)
+    private void work(Stage<T> stage, StageStats stageStats, BlockingQueue<Slot<T>> in, BlockingQueue<Slot<T>> out) {
+        try {
+            while (true) {
+                long waitBegin = System.nanoTime();
+                Slot<T> slot = in.take();
+                stageStats.waitInNanos.addAndGet(System.nanoTime() - waitBegin);
+                if (slot == end) {
+                    break;
+                }
+                if (failure == null) {
+                    long begin = System.nanoTime();
+                    try {
+                        stage.process(slot.item);
+                    } catch (IOException | RuntimeException | Error ex) {
+                        fail(ex);
+                    }
+                    stageStats.busyNanos.addAndGet(System.nanoTime() - begin);
+                    stageStats.items.incrementAndGet();
+                }
+                waitBegin = System.nanoTime();
+                out.put(slot);
+                stageStats.waitOutNanos.addAndGet(System.nanoTime() - waitBegin);
+            }
+        } catch (InterruptedException ex) {
+            fail(ex);
+        }
+    }
+
+    // remember the first failure
+    private synchronized void fail(Throwable ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Pipeline" + stats;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    // statistics of the stages (write stage is the last one), live while running
+    public List<StageStats> getStats() {
+        return stats;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+}
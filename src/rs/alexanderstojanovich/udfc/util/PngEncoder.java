@@ -0,0 +1,403 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class PngEncoder { // png writer for char images (ARGB and indexed), other images go to ImageIO
+
+    // default compression level, char images are small so best compression is cheap
+    public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_COMPRESSION;
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+    private static final int COLOR_TYPE_INDEXED = 3;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    // deflate compression level (0-9)
+    private final int compressionLevel;
+    // choose filter for each ARGB scanline, otherwise no filter is used;
+    // glyphs are mostly flat colors on transparent background which deflate better unfiltered
+    private final boolean adaptiveFiltering;
+
+    // deflater and buffers are reused, one set for each thread
+    private volatile ThreadLocal<State> states = newStates();
+    // states of all the threads, their deflaters (native zlib memory) are ended on close
+    private final List<State> created = new ArrayList<>();
+
+    // per-thread encoding state
+    private static class State {
+
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        // row of the source image (ints for ARGB, bytes for indexed)
+        private int[] rowInts = new int[0];
+        private byte[] rowBytes = new byte[0];
+        // previous and current scanline (unfiltered) and the filtered candidates,
+        // each scanline starts with filter type byte
+        private byte[] prev = new byte[0];
+        private byte[] cur = new byte[0];
+        private final byte[][] filtered = new byte[5][0];
+        // compressed image data
+        private byte[] idat = new byte[8192];
+        private int idatLength = 0;
+        private final byte[] deflated = new byte[8192];
+        // chunk header and other small fields
+        private final byte[] header = new byte[13];
+
+        public State(int compressionLevel) {
+            this.deflater = new Deflater(compressionLevel);
+        }
+
+        // make sure scanline buffers can hold the row of given length (with filter byte)
+        private void ensureScanline(int length) {
+            if (cur.length < length) {
+                prev = new byte[length];
+                cur = new byte[length];
+                for (int f = 0; f < filtered.length; f++) {
+                    filtered[f] = new byte[length];
+                }
+            }
+            Arrays.fill(prev, 0, length, (byte) 0);
+        }
+
+        // drain the deflater into the image data
+        private void drain() {
+            int n;
+            while ((n = deflater.deflate(deflated, 0, deflated.length, Deflater.NO_FLUSH)) > 0) {
+                if (idatLength + n > idat.length) {
+                    idat = Arrays.copyOf(idat, Math.max(2 * idat.length, idatLength + n));
+                }
+                System.arraycopy(deflated, 0, idat, idatLength, n);
+                idatLength += n;
+            }
+        }
+
+        // compress the scanline
+        private void deflate(byte[] scanline, int length) {
+            deflater.setInput(scanline, 0, length);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    public PngEncoder() {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    public PngEncoder(int compressionLevel) {
+        this(compressionLevel, false);
+    }
+
+    public PngEncoder(int compressionLevel, boolean adaptiveFiltering) {
+        this.compressionLevel = compressionLevel;
+        this.adaptiveFiltering = adaptiveFiltering;
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // new state for each thread which encodes, it's ended on close
+    private ThreadLocal<State> newStates() {
+        return new ThreadLocal<State>() {
+            @Override
+            protected State initialValue() {
+                State state = new State(compressionLevel);
+                synchronized (created) {
+                    created.add(state);
+                }
+                return state;
+            }
+        };
+    }
+
+    // end the deflaters of all the threads (when the job is done or encoder is dropped), zlib memory isn't
+    // left to the GC then; encoder can be used again (threads get new deflaters), but not while it's encoding
+    public void close() {
+        states = newStates();
+        synchronized (created) {
+            for (State state : created) {
+                state.deflater.end();
+            }
+            created.clear();
+        }
+    }
+
+    // write the image as png into the output stream
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_ARGB:
+                encodeARGB(image, out);
+                break;
+            case BufferedImage.TYPE_BYTE_INDEXED:
+                encodeIndexed(image, out);
+                break;
+            default:
+                ImageIO.write(image, "png", out);
+                break;
+        }
+    }
+
+    // ARGB image as 8-bit RGBA, with adaptive filtering each scanline gets the filter
+    // with smallest sum of absolute differences
+    private void encodeARGB(BufferedImage image, OutputStream out) throws IOException {
+        State state = states.get();
+        final int w = image.getWidth();
+        final int h = image.getHeight();
+        final int length = 4 * w + 1;
+        Raster raster = image.getRaster();
+        if (state.rowInts.length < w) {
+            state.rowInts = new int[w];
+        }
+        state.ensureScanline(length);
+        begin(state);
+        for (int y = 0; y < h; y++) {
+            raster.getDataElements(0, y, w, 1, state.rowInts);
+            byte[] cur = state.cur;
+            cur[0] = FILTER_NONE;
+            for (int x = 0, i = 1; x < w; x++) {
+                int pixel = state.rowInts[x];
+                cur[i++] = (byte) (pixel >> 16);
+                cur[i++] = (byte) (pixel >> 8);
+                cur[i++] = (byte) pixel;
+                cur[i++] = (byte) (pixel >>> 24);
+            }
+            byte[] best = adaptiveFiltering ? filter(state, length, 4) : cur;
+            state.deflate(best, length);
+            // current row becomes previous one
+            byte[] temp = state.prev;
+            state.prev = state.cur;
+            state.cur = temp;
+        }
+        finish(state);
+
+        out.write(SIGNATURE);
+        writeHeader(state, out, w, h, 8, COLOR_TYPE_RGBA);
+        writeChunk(state, out, "IDAT", state.idat, state.idatLength);
+        writeChunk(state, out, "IEND", state.idat, 0);
+    }
+
+    // indexed image with the smallest bit depth which holds all the used indices,
+    // palette is cut to the used part, transparency goes to tRNS
+    private void encodeIndexed(BufferedImage image, OutputStream out) throws IOException {
+        State state = states.get();
+        final int w = image.getWidth();
+        final int h = image.getHeight();
+        Raster raster = image.getRaster();
+        IndexColorModel icm = (IndexColorModel) image.getColorModel();
+        if (state.rowBytes.length < w) {
+            state.rowBytes = new byte[w];
+        }
+        // the highest index determines bit depth
+        int maxIndex = 0;
+        for (int y = 0; y < h; y++) {
+            raster.getDataElements(0, y, w, 1, state.rowBytes);
+            for (int x = 0; x < w; x++) {
+                maxIndex = Math.max(maxIndex, state.rowBytes[x] & 0xFF);
+            }
+        }
+        final int depth = (maxIndex < 2) ? 1 : (maxIndex < 4) ? 2 : (maxIndex < 16) ? 4 : 8;
+        final int perByte = 8 / depth;
+        final int length = (w + perByte - 1) / perByte + 1;
+        state.ensureScanline(length);
+        begin(state);
+        for (int y = 0; y < h; y++) {
+            raster.getDataElements(0, y, w, 1, state.rowBytes);
+            byte[] cur = state.cur;
+            cur[0] = FILTER_NONE;
+            if (depth == 8) {
+                System.arraycopy(state.rowBytes, 0, cur, 1, w);
+            } else {
+                Arrays.fill(cur, 1, length, (byte) 0);
+                for (int x = 0; x < w; x++) {
+                    int shift = 8 - depth * (x % perByte + 1);
+                    cur[1 + x / perByte] |= (state.rowBytes[x] & 0xFF) << shift;
+                }
+            }
+            state.deflate(cur, length);
+        }
+        finish(state);
+
+        // used part of the palette
+        final int entries = Math.min(maxIndex + 1, icm.getMapSize());
+        byte[] plte = new byte[3 * entries];
+        byte[] trns = new byte[entries];
+        int trnsLength = 0;
+        for (int i = 0; i < entries; i++) {
+            plte[3 * i] = (byte) icm.getRed(i);
+            plte[3 * i + 1] = (byte) icm.getGreen(i);
+            plte[3 * i + 2] = (byte) icm.getBlue(i);
+            trns[i] = (byte) icm.getAlpha(i);
+            if (icm.getAlpha(i) != 0xFF) {
+                trnsLength = i + 1;
+            }
+        }
+
+        out.write(SIGNATURE);
+        writeHeader(state, out, w, h, depth, COLOR_TYPE_INDEXED);
+        writeChunk(state, out, "PLTE", plte, plte.length);
+        if (trnsLength > 0) {
+            writeChunk(state, out, "tRNS", trns, trnsLength);
+        }
+        writeChunk(state, out, "IDAT", state.idat, state.idatLength);
+        writeChunk(state, out, "IEND", state.idat, 0);
+    }
+
+    // apply all five filters to the current scanline and return the best one
+    private static byte[] filter(State state, int length, int bpp) {
+        final byte[] cur = state.cur;
+        final byte[] prev = state.prev;
+        final byte[][] filtered = state.filtered;
+        long[] sums = new long[5];
+        for (int f = 0; f < filtered.length; f++) {
+            filtered[f][0] = (byte) f;
+        }
+        for (int i = 1; i < length; i++) {
+            int raw = cur[i] & 0xFF;
+            int left = (i > bpp) ? cur[i - bpp] & 0xFF : 0;
+            int up = prev[i] & 0xFF;
+            int upLeft = (i > bpp) ? prev[i - bpp] & 0xFF : 0;
+
+            byte none = (byte) raw;
+            byte sub = (byte) (raw - left);
+            byte upFiltered = (byte) (raw - up);
+            byte average = (byte) (raw - ((left + up) >> 1));
+            byte paeth = (byte) (raw - paethPredictor(left, up, upLeft));
+
+            filtered[FILTER_NONE][i] = none;
+            filtered[FILTER_SUB][i] = sub;
+            filtered[FILTER_UP][i] = upFiltered;
+            filtered[FILTER_AVERAGE][i] = average;
+            filtered[FILTER_PAETH][i] = paeth;
+
+            sums[FILTER_NONE] += Math.abs(none);
+            sums[FILTER_SUB] += Math.abs(sub);
+            sums[FILTER_UP] += Math.abs(upFiltered);
+            sums[FILTER_AVERAGE] += Math.abs(average);
+            sums[FILTER_PAETH] += Math.abs(paeth);
+        }
+        int best = FILTER_NONE;
+        for (int f = 1; f < sums.length; f++) {
+            if (sums[f] < sums[best]) {
+                best = f;
+            }
+        }
+        return filtered[best];
+    }
+
+    // paeth predictor from the png specification
+    private static int paethPredictor(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        } else if (pb <= pc) {
+            return b;
+        } else {
+            return c;
+        }
+    }
+
+    // prepare deflater for new image
+    private void begin(State state) {
+        state.deflater.reset();
+        state.deflater.setLevel(compressionLevel);
+        state.idatLength = 0;
+    }
+
+    // finish the deflate stream
+    private static void finish(State state) {
+        state.deflater.finish();
+        while (!state.deflater.finished()) {
+            state.drain();
+        }
+    }
+
+    // write IHDR chunk
+    private static void writeHeader(State state, OutputStream out, int w, int h, int depth, int colorType) throws IOException {
+        byte[] ihdr = state.header;
+        putInt(ihdr, 0, w);
+        putInt(ihdr, 4, h);
+        ihdr[8] = (byte) depth;
+        ihdr[9] = (byte) colorType;
+        ihdr[10] = 0; // deflate
+        ihdr[11] = 0; // adaptive filtering
+        ihdr[12] = 0; // no interlace
+        writeChunk(state, out, "IHDR", ihdr, ihdr.length);
+    }
+
+    // write the chunk, length, type, data and CRC of type and data
+    private static void writeChunk(State state, OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = {(byte) type.charAt(0), (byte) type.charAt(1), (byte) type.charAt(2), (byte) type.charAt(3)};
+        byte[] field = new byte[4];
+        putInt(field, 0, length);
+        out.write(field);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        state.crc.reset();
+        state.crc.update(typeBytes);
+        state.crc.update(data, 0, length);
+        putInt(field, 0, (int) state.crc.getValue());
+        out.write(field);
+    }
+
+    // big endian int
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isAdaptiveFiltering() {
+        return adaptiveFiltering;
+    }
+
+}
@@ -0,0 +1,232 @@
+/* 
+ * Copyright (C) 2020 Alexander Stojanovich <coas91@rocketmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package rs.alexanderstojanovich.udfc.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+
+/**
+ *
+ * @author Alexander Stojanovich <coas91@rocketmail.com>
+ */
+public class Quantizer { // converts ARGB pixels to palette indices, built once per palette
+
+    // bits per color component used in lookup table (table is 32 x 32 x 32 cells)
+    public static final int LUT_BITS = 5;
+    // index of the transparent color in all the palettes
+    public static final int TRANSPARENT_INDEX = 0;
+
+    // all colors in the palette (ARGB)
+    private final int[] colors;
+    // shared color model of all the indexed images
+    private final IndexColorModel colorModel;
+    // candidates of each cell of RGB cube, (opaque) palette indices which are the nearest color of some RGB in the cell,
+    // ones of cell c are candidates[cellStart[c]] .. candidates[cellStart[c + 1] - 1] in ascending order
+    private final int[] cellStart;
+    private final byte[] candidates;
+
+    // uniform cube palettes are indexed arithmetically,
+    // index part for each component value (null if palette isn't uniform cube)
+    private final int[] redIndex;
+    private final int[] greenIndex;
+    private final int[] blueIndex;
+
+    //--------------------------------------------------------------------------
+    // A - CONSTRUCTORS
+    //--------------------------------------------------------------------------
+    // quantizer for any palette, nearest color is found among the candidates of the lookup table cell
+    public Quantizer(int[] colors, byte[] colBuff) {
+        this(colors, colBuff, null, null, null);
+    }
+
+    // quantizer for uniform cube palette, index = redIndex[r] + greenIndex[g] + blueIndex[b]
+    public Quantizer(int[] colors, byte[] colBuff, int[] redIndex, int[] greenIndex, int[] blueIndex) {
+        this.colors = colors;
+        this.colorModel = new IndexColorModel(8, colors.length, colBuff, 0, true);
+        this.redIndex = redIndex;
+        this.greenIndex = greenIndex;
+        this.blueIndex = blueIndex;
+        this.cellStart = new int[(1 << (3 * LUT_BITS)) + 1];
+        this.candidates = makeLookupTable(colors, cellStart);
+    }
+
+    //--------------------------------------------------------------------------
+    // B - METHODS
+    //--------------------------------------------------------------------------
+    // squared distance of the component value to the nearest (or the farthest) end of the cell
+    private static int nearestSquared(int c, int lo, int hi) {
+        int d = (c < lo) ? lo - c : ((c > hi) ? c - hi : 0);
+        return d * d;
+    }
+
+    private static int farthestSquared(int c, int lo, int hi) {
+        int d = Math.max(Math.abs(c - lo), Math.abs(c - hi));
+        return d * d;
+    }
+
+    // candidates of each lookup table cell (cellStart is filled with where they begin), color is a candidate
+    // if it's nearest point of the cell isn't farther than the farthest point of the cell from some other color,
+    // so the nearest color of each RGB in the cell (and the first one of the same distance) is among them
+    private static byte[] makeLookupTable(int[] colors, int[] cellStart) {
+        final int size = 1 << LUT_BITS;
+        final int shift = 8 - LUT_BITS;
+        final int span = (1 << shift) - 1;
+        byte[] table = new byte[8 * size * size * size];
+        // squared distances of the components to the cell (nearest and farthest), each axis when it's cell changes
+        int[] nearRG = new int[colors.length];
+        int[] farRG = new int[colors.length];
+        int[] nearR = new int[colors.length];
+        int[] farR = new int[colors.length];
+        int[] minDist = new int[colors.length];
+        int count = 0;
+        for (int r = 0; r < size; r++) {
+            for (int i = 0; i < colors.length; i++) {
+                nearR[i] = nearestSquared((colors[i] >> 16) & 0xFF, r << shift, (r << shift) + span);
+                farR[i] = farthestSquared((colors[i] >> 16) & 0xFF, r << shift, (r << shift) + span);
+            }
+            for (int g = 0; g < size; g++) {
+                for (int i = 0; i < colors.length; i++) {
+                    nearRG[i] = nearR[i] + nearestSquared((colors[i] >> 8) & 0xFF, g << shift, (g << shift) + span);
+                    farRG[i] = farR[i] + farthestSquared((colors[i] >> 8) & 0xFF, g << shift, (g << shift) + span);
+                }
+                for (int b = 0; b < size; b++) {
+                    int bound = Integer.MAX_VALUE;
+                    for (int i = 0; i < colors.length; i++) {
+                        if ((colors[i] >>> 24) != 0) {
+                            minDist[i] = nearRG[i] + nearestSquared(colors[i] & 0xFF, b << shift, (b << shift) + span);
+                            bound = Math.min(bound, farRG[i] + farthestSquared(colors[i] & 0xFF, b << shift, (b << shift) + span));
+                        }
+                    }
+                    cellStart[(r << (2 * LUT_BITS)) | (g << LUT_BITS) | b] = count;
+                    for (int i = 0; i < colors.length; i++) {
+                        if ((colors[i] >>> 24) != 0 && minDist[i] <= bound) {
+                            if (count == table.length) {
+                                table = Arrays.copyOf(table, 2 * table.length);
+                            }
+                            table[count++] = (byte) i;
+                        }
+                    }
+                }
+            }
+        }
+        cellStart[size * size * size] = count;
+        return Arrays.copyOf(table, count);
+    }
+
+    // nearest opaque palette color (euclidean distance), linear search
+    public static int nearest(int[] colors, int red, int green, int blue) {
+        int best = TRANSPARENT_INDEX;
+        int bestDist = Integer.MAX_VALUE;
+        for (int i = 0; i < colors.length; i++) {
+            if ((colors[i] >>> 24) == 0) {
+                continue;
+            }
+            int dr = ((colors[i] >> 16) & 0xFF) - red;
+            int dg = ((colors[i] >> 8) & 0xFF) - green;
+            int db = (colors[i] & 0xFF) - blue;
+            int dist = dr * dr + dg * dg + db * db;
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // component value to index part of the nearest level (levels are component values of the cube)
+    public static int[] levelIndex(int[] levels, int stride) {
+        int[] index = new int[256];
+        for (int c = 0; c < index.length; c++) {
+            int best = 0;
+            for (int l = 1; l < levels.length; l++) {
+                if (Math.abs(levels[l] - c) < Math.abs(levels[best] - c)) {
+                    best = l;
+                }
+            }
+            index[c] = best * stride;
+        }
+        return index;
+    }
+
+    // palette index of the ARGB pixel, (mostly) transparent pixels get the transparent index
+    public int index(int argb) {
+        if ((argb >>> 24) < 0x80) {
+            return TRANSPARENT_INDEX;
+        }
+        if (redIndex != null) {
+            int index = redIndex[(argb >> 16) & 0xFF] + greenIndex[(argb >> 8) & 0xFF] + blueIndex[argb & 0xFF];
+            if (index != TRANSPARENT_INDEX) {
+                return index;
+            }
+        }
+        final int shift = 8 - LUT_BITS;
+        final int red = (argb >> 16) & 0xFF;
+        final int green = (argb >> 8) & 0xFF;
+        final int blue = argb & 0xFF;
+        final int cell = ((red >> shift) << (2 * LUT_BITS)) | ((green >> shift) << LUT_BITS) | (blue >> shift);
+        // exact nearest color, the same one as nearest gives (searched only among the candidates of the cell)
+        int best = TRANSPARENT_INDEX;
+        int bestDist = Integer.MAX_VALUE;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            int i = candidates[k] & 0xFF;
+            int dr = ((colors[i] >> 16) & 0xFF) - red;
+            int dg = ((colors[i] >> 8) & 0xFF) - green;
+            int db = (colors[i] & 0xFF) - blue;
+            int dist = dr * dr + dg * dg + db * db;
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // convert ARGB pixels (row-major) to the indexed image with the shared color model
+    public BufferedImage quantize(int[] argb, int w, int h) {
+        BufferedImage imageIndexed = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        byte[] indices = ((DataBufferByte) imageIndexed.getRaster().getDataBuffer()).getData();
+        int lastPixel = 0;
+        byte lastIndex = (byte) TRANSPARENT_INDEX;
+        for (int i = 0; i < indices.length; i++) {
+            int pixel = argb[i];
+            if (pixel != lastPixel) { // glyphs are mostly runs of the same color
+                lastPixel = pixel;
+                lastIndex = (byte) index(pixel);
+            }
+            indices[i] = lastIndex;
+        }
+        return imageIndexed;
+    }
+
+    //--------------------------------------------------------------------------
+    // C - GETTERS
+    //--------------------------------------------------------------------------
+    public int[] getColors() {
+        return colors;
+    }
+
+    public IndexColorModel getColorModel() {
+        return colorModel;
+    }
+
+    public boolean isUniformCube() {
+        return redIndex != null;
+    }
+
+}